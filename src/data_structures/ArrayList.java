@@ -1,9 +1,15 @@
 package data_structures;
 
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.ListIterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
+import interfaces.FilterFunction;
 import interfaces.List;
 
 
@@ -24,14 +30,23 @@ public class ArrayList<E> implements List<E>{
 	   NOTE: size != elements.length, size is how many occupied spaces, 
 	   length is how many elements fit in the array */
 	private int size;
+	// How many times larger the array gets every time it's full
+	private final double growthFactor;
+	// Counts the structural changes (adds and removes), so cursors can tell if the List
+	// was changed behind their back
+	private int modCount;
+	
+	/**
+	 * Growth factor used when none is given, the array doubles its length when it's full.
+	 */
+	public static final double DEFAULT_GROWTH_FACTOR = 2.0;
 	
 	/**
 	 * Default constructor. 
 	 * It creates an ArrayList with an initial capacity of 15.
 	 */
 	public ArrayList() {
-		this.elements = (E[]) new Object[15];
-		this.size = 0;
+		this(15);
 	}
 
 	/**
@@ -39,8 +54,25 @@ public class ArrayList<E> implements List<E>{
 	 * @param initialCapacity - the initial capacity (length of array) we want the ArrayList to start with.
 	 */
 	public ArrayList(int initialCapacity) {
+		this(initialCapacity, DEFAULT_GROWTH_FACTOR);
+	}
+
+	/**
+	 * Constructs an ArrayList with an initial capacity and the factor its array grows by
+	 * when it's full. A smaller factor wastes less memory, a larger one copies the elements
+	 * fewer times.
+	 * @param initialCapacity - the initial capacity (length of array) we want the ArrayList to start with.
+	 * @param growthFactor - how many times larger the array gets when it's full, more than 1
+	 * @throws IllegalArgumentException if initialCapacity is negative or growthFactor is not more than 1
+	 */
+	public ArrayList(int initialCapacity, double growthFactor) {
+		if(initialCapacity < 0)
+			throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+		if(!(growthFactor > 1))
+			throw new IllegalArgumentException("Illegal growth factor: " + growthFactor);
 		this.elements = (E[]) new Object[initialCapacity];
 		this.size = 0;
+		this.growthFactor = growthFactor;
 	}
 	/**
 	 * Returns the current size if the List
@@ -72,6 +104,7 @@ public class ArrayList<E> implements List<E>{
 			reallocate();
 		// Add value at end and increase size
 		this.elements[size++] = obj;
+		this.modCount++;
 //		this.size++;
 		
 	}
@@ -90,28 +123,64 @@ public class ArrayList<E> implements List<E>{
 		// If array full, expands if it is
 		if(this.size == this.elements.length)
 			reallocate();
-		// Shift values to the right
-		for(int i = size; i > index; i--)
-			this.elements[i] = this.elements[i-1];
+		// Shift values to the right in a single block move
+		System.arraycopy(this.elements, index, this.elements, index + 1, size - index);
 		// Place new value
 		this.elements[index] = obj;
 		// Increase size
 		this.size++;
+		this.modCount++;
 	}
 	/**
-	 * Expands the size of elements. 
-	 * It create an new array twice the length of the current elements array and places all the existing 
-	 * elements in it. This new array then replaces the old elements array.
+	 * Expands the size of elements so there is room for at least one more element.
 	 */
 	private void reallocate() {
-		E[] temp = (E[]) new Object[this.size*2];
-		
-		for(int i=0; i<this.elements.length; i++) {
-			temp[i] = this.elements[i];
-			elements[i] = null;
+		grow(this.size + 1);
+	}
+	
+	/**
+	 * Makes sure the array can hold at least minCapacity elements without growing again.
+	 * Useful before adding many elements at once, so the array is only copied once.
+	 * @param minCapacity - the amount of elements the List should be able to hold
+	 */
+	public void ensureCapacity(int minCapacity) {
+		if(minCapacity > this.elements.length)
+			grow(minCapacity);
+	}
+	
+	/**
+	 * Replaces elements with a larger array that holds the same elements.
+	 * The new length is the current length times the growth factor, but never less than
+	 * minCapacity, so even an array of length 0 can grow.
+	 * @param minCapacity - the smallest length the new array can have
+	 */
+	private void grow(int minCapacity) {
+		long grown = (long) (this.elements.length * growthFactor);
+		int newLength = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(grown, Math.max(minCapacity, 4)));
+		if(newLength < minCapacity)
+			throw new OutOfMemoryError("Required array length too large");
+		this.elements = Arrays.copyOf(this.elements, newLength);
+	}
+	
+	/**
+	 * Adds every element of other to the end of the List, in the order other has them.
+	 * The array grows at most once, and if other is also an ArrayList its elements are
+	 * copied in a single block move.
+	 * @param other - the List whose elements we want to add
+	 */
+	public void addAll(List<? extends E> other) {
+		int count = other.size();
+		if(count == 0)
+			return;
+		ensureCapacity(this.size + count);
+		this.modCount++;
+		if(other instanceof ArrayList) {
+			System.arraycopy(((ArrayList<? extends E>) other).elements, 0, this.elements, this.size, count);
+			this.size += count;
+			return;
 		}
-		this.elements = temp;
-		
+		for(E e : other)
+			this.elements[size++] = e;
 	}
 
 	/**
@@ -164,13 +233,13 @@ public class ArrayList<E> implements List<E>{
 		// Check bounds
 		if(index < 0 || index >= size)
 			throw new IndexOutOfBoundsException();
-		// Shift values to the left
-		for(int i = index; i < this.size-1; i++)
-			this.elements[i] = this.elements[i+1];
+		// Shift values to the left in a single block move
+		System.arraycopy(this.elements, index + 1, this.elements, index, this.size - index - 1);
 		// Null the last position
 		this.elements[this.size-1]= null;
 		// Decrease size
 		this.size--;
+		this.modCount++;
 		return true;
 	}
 
@@ -216,30 +285,43 @@ public class ArrayList<E> implements List<E>{
 	@Override
 	public void clear() {
 		// Empty array
-		for(int i = 0; i < this.size; i++)
-			this.elements[i] = null;
+		Arrays.fill(this.elements, 0, this.size, null);
 		this.size = 0;
-		
+		this.modCount++;
 	}
 
 	/**
 	 * Remove all instances of obj from the array.
+	 * It does it in a single pass, moving each kept element at most once.
 	 * 
 	 * @return Returns the total number of instances removed
 	 */
 	@Override
 	public int removeAll(E obj) {
-		// Counter
-		int count = 0;
-		
-//		while(remove(obj)) 
-//			count++;
-		boolean found = remove(obj);
-		while(found) {
-			count++;
-			found = remove(obj);
-			
+		return removeIf(e -> e.equals(obj));
+	}
+	
+	/**
+	 * Removes every element that matches the given filter.
+	 * The kept elements are moved towards the front as the array is walked, so it takes a
+	 * single pass no matter how many elements are removed.
+	 * 
+	 * @param func - filter that returns true for the elements to remove
+	 * @return Returns the total number of elements removed
+	 */
+	public int removeIf(FilterFunction<? super E> func) {
+		int kept = 0;
+		for(int i = 0; i < this.size; i++) {
+			E e = this.elements[i];
+			if(!func.filter(e))
+				this.elements[kept++] = e;
 		}
+		// Null the positions that are no longer used
+		Arrays.fill(this.elements, kept, this.size, null);
+		int count = this.size - kept;
+		this.size = kept;
+		if(count > 0)
+			this.modCount++;
 		return count;
 	}
 
@@ -313,6 +395,33 @@ public class ArrayList<E> implements List<E>{
 		return new ArrayListIterator<E>();
 	}
 	
+	/**
+	 * Returns a cursor over the ArrayList that starts before position index.
+	 * Moving, reading and replacing take constant time, adding and removing shift the
+	 * elements after the cursor like add(int, E) and remove(int) do.
+	 * 
+	 * @param index - position of the element the first call to next() returns
+	 * @return - ListIterator for this List
+	 */
+	@Override
+	public ListIterator<E> listIterator(int index) {
+		if(index < 0 || index > size)
+			throw new IndexOutOfBoundsException();
+		return new ArrayListCursor(index);
+	}
+	
+	/**
+	 * Returns a Spliterator over the ArrayList that splits by halving its range of
+	 * positions, so every part knows its exact size and parallel streams divide the
+	 * work evenly.
+	 * 
+	 * @return - Spliterator for this List
+	 */
+	@Override
+	public Spliterator<E> spliterator() {
+		return new ArrayListSpliterator(0, -1, 0);
+	}
+	
 	/**
 	 * Returns a String version of the ArrayList. 
 	 * The format will be: { A, B, C, null, null }, where each element within the brackets { }
@@ -348,6 +457,184 @@ public class ArrayList<E> implements List<E>{
 			System.out.println(F.apply(this.elements[i]));
 	}
 	
+	/**
+	 * Bidirectional cursor for the ArrayList implementation. It sits between two positions
+	 * of the List and remembers the last element it returned, which is the one remove()
+	 * and set() work on.
+	 * 
+	 * @author jorge
+	 *
+	 */
+	private class ArrayListCursor implements ListIterator<E> {
+		// Position of the element the next call to next() returns
+		private int cursor;
+		// Position of the last element returned, -1 if there is none or it was removed
+		private int lastReturned = -1;
+		// The modCount of the List as this cursor last saw it
+		private int expectedModCount = modCount;
+		
+		public ArrayListCursor(int index) {
+			this.cursor = index;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return cursor < size;
+		}
+		
+		@Override
+		public E next() {
+			checkForModification();
+			if(cursor >= size)
+				throw new NoSuchElementException();
+			lastReturned = cursor++;
+			return elements[lastReturned];
+		}
+		
+		@Override
+		public boolean hasPrevious() {
+			return cursor > 0;
+		}
+		
+		@Override
+		public E previous() {
+			checkForModification();
+			if(cursor <= 0)
+				throw new NoSuchElementException();
+			lastReturned = --cursor;
+			return elements[lastReturned];
+		}
+		
+		@Override
+		public int nextIndex() {
+			return cursor;
+		}
+		
+		@Override
+		public int previousIndex() {
+			return cursor - 1;
+		}
+		
+		@Override
+		public void remove() {
+			if(lastReturned < 0)
+				throw new IllegalStateException();
+			checkForModification();
+			ArrayList.this.remove(lastReturned);
+			// If we had moved past the removed element, the cursor moves back with the rest
+			cursor = lastReturned;
+			lastReturned = -1;
+			expectedModCount = modCount;
+		}
+		
+		@Override
+		public void set(E e) {
+			if(lastReturned < 0)
+				throw new IllegalStateException();
+			checkForModification();
+			elements[lastReturned] = e;
+		}
+		
+		@Override
+		public void add(E e) {
+			checkForModification();
+			ArrayList.this.add(cursor++, e);
+			lastReturned = -1;
+			expectedModCount = modCount;
+		}
+		
+		/**
+		 * Fails if the List was structurally changed by something other than this cursor.
+		 */
+		private void checkForModification() {
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+		}
+	}
+	
+	/**
+	 * Spliterator for the ArrayList implementation. It covers the positions from origin up
+	 * to fence and splits by giving its first half to a new Spliterator. The fence is only
+	 * fixed the first time it's needed, so changes made to the List before that are seen.
+	 * It is fail-fast like the cursor, checking for changes after a traversal.
+	 * 
+	 * @author jorge
+	 *
+	 */
+	private class ArrayListSpliterator implements Spliterator<E> {
+		// Position of the next element to visit
+		private int origin;
+		// One past the last position to visit, -1 until it's first needed
+		private int fence;
+		// The modCount of the List when the fence was fixed
+		private int expectedModCount;
+		
+		public ArrayListSpliterator(int origin, int fence, int expectedModCount) {
+			this.origin = origin;
+			this.fence = fence;
+			this.expectedModCount = expectedModCount;
+		}
+		
+		/**
+		 * Returns the fence, fixing it to the current size the first time.
+		 */
+		private int getFence() {
+			if(fence < 0) {
+				fence = size;
+				expectedModCount = modCount;
+			}
+			return fence;
+		}
+		
+		@Override
+		public Spliterator<E> trySplit() {
+			int hi = getFence();
+			int mid = (origin + hi) >>> 1;
+			if(origin >= mid)
+				return null;
+			// The new Spliterator takes the first half, this one keeps the rest
+			Spliterator<E> prefix = new ArrayListSpliterator(origin, mid, expectedModCount);
+			origin = mid;
+			return prefix;
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super E> action) {
+			if(action == null)
+				throw new NullPointerException();
+			int hi = getFence();
+			if(origin >= hi)
+				return false;
+			action.accept(elements[origin++]);
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			return true;
+		}
+		
+		@Override
+		public void forEachRemaining(Consumer<? super E> action) {
+			if(action == null)
+				throw new NullPointerException();
+			int hi = getFence();
+			E[] data = elements;
+			for(int i = origin; i < hi; i++)
+				action.accept(data[i]);
+			origin = hi;
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+		}
+		
+		@Override
+		public long estimateSize() {
+			return getFence() - origin;
+		}
+		
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+		}
+	}
+	
 	/**
 	 * Iterator for the ArrayList implementation.
 	 * What this does is that it makes it possible for use to iterate through the ArrayList
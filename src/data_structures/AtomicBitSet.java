@@ -0,0 +1,124 @@
+package data_structures;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Set of non-negative ints stored as a bit per int, like java.util.BitSet, that several
+ * threads can modify at the same time. Each bit is changed with a compare-and-set on the
+ * word that holds it, so threads working on different bits never block each other.
+ *
+ * Growing the set is not atomic, ensureCapacity() must not run at the same time as any
+ * other method.
+ * @author jorge
+ *
+ */
+public class AtomicBitSet {
+
+	// The bits, 64 per word
+	private volatile AtomicLongArray words;
+
+	/**
+	 * Creates a set that can hold the ints from 0 to nbits - 1 without growing.
+	 * @param nbits - amount of bits to start with
+	 */
+	public AtomicBitSet(int nbits) {
+		this.words = new AtomicLongArray(wordIndex(Math.max(nbits, 1) - 1) + 1);
+	}
+
+	/**
+	 * Makes sure the set can hold the ints from 0 to nbits - 1.
+	 * It must not run at the same time as any other method of the set.
+	 * @param nbits - amount of bits needed
+	 */
+	public void ensureCapacity(int nbits) {
+		AtomicLongArray current = this.words;
+		int needed = wordIndex(Math.max(nbits, 1) - 1) + 1;
+		if(needed <= current.length())
+			return;
+		AtomicLongArray larger = new AtomicLongArray(Math.max(needed, current.length() * 2));
+		for(int i = 0; i < current.length(); i++)
+			larger.set(i, current.get(i));
+		this.words = larger;
+	}
+
+	/**
+	 * Returns whether bit i is set.
+	 * @param i - the bit
+	 * @return (boolean) True if set, false otherwise or if i is past the end of the set
+	 */
+	public boolean get(int i) {
+		AtomicLongArray current = this.words;
+		int w = wordIndex(i);
+		return w < current.length() && (current.get(w) & (1L << i)) != 0;
+	}
+
+	/**
+	 * Sets or clears bit i.
+	 * @param i - the bit, it must be less than the capacity given to ensureCapacity()
+	 * @param value - True to set the bit, false to clear it
+	 * @return (boolean) The previous value of the bit
+	 * @throws IndexOutOfBoundsException if i is negative or past the capacity of the set
+	 */
+	public boolean set(int i, boolean value) {
+		AtomicLongArray current = this.words;
+		int w = wordIndex(i);
+		long mask = 1L << i;
+		while(true) {
+			long old = current.get(w);
+			long updated = value ? old | mask : old & ~mask;
+			if(old == updated || current.compareAndSet(w, old, updated))
+				return (old & mask) != 0;
+		}
+	}
+
+	/**
+	 * Clears bit i. Bits past the end of the set are already clear.
+	 * @param i - the bit
+	 */
+	public void clear(int i) {
+		if(i >= 0 && wordIndex(i) < words.length())
+			set(i, false);
+	}
+
+	/**
+	 * Returns the first set bit at or after position from.
+	 * @param from - where to start searching
+	 * @return (int) the first set bit found, -1 if there is none
+	 */
+	public int nextSetBit(int from) {
+		AtomicLongArray current = this.words;
+		int w = wordIndex(from);
+		if(w >= current.length())
+			return -1;
+		// Ignore the bits before from in the first word
+		long word = current.get(w) & (-1L << from);
+		while(true) {
+			if(word != 0)
+				return w * 64 + Long.numberOfTrailingZeros(word);
+			if(++w == current.length())
+				return -1;
+			word = current.get(w);
+		}
+	}
+
+	/**
+	 * Returns the amount of set bits.
+	 * @return (int) amount of set bits
+	 */
+	public int cardinality() {
+		AtomicLongArray current = this.words;
+		int count = 0;
+		for(int i = 0; i < current.length(); i++)
+			count += Long.bitCount(current.get(i));
+		return count;
+	}
+
+	/**
+	 * Returns the word that holds bit i.
+	 */
+	private static int wordIndex(int i) {
+		if(i < 0)
+			throw new IndexOutOfBoundsException("bit index < 0: " + i);
+		return i >> 6;
+	}
+}
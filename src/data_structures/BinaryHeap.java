@@ -0,0 +1,132 @@
+package data_structures;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+import interfaces.PriorityQueue;
+
+/**
+ * Implementation of a PriorityQueue using a binary min-heap stored in an array. The
+ * children of the element at position i are at positions 2i + 1 and 2i + 2, and no element
+ * is larger than its children, so the smallest element is always at position 0. Adding and
+ * removing take O(log n) time.
+ *
+ * A heap that never holds more than k elements is how the k largest elements of a
+ * sequence are found in O(n log k) time: once it's full, each element larger than min()
+ * takes its place through replaceMin().
+ * @author jorge
+ *
+ * @param <E> - Type of the elements
+ */
+@SuppressWarnings("unchecked")
+public class BinaryHeap<E> implements PriorityQueue<E> {
+
+	// The heap, in level order
+	private E[] elements;
+	// Amount of elements in the heap
+	private int size;
+	// The order of the elements
+	private final Comparator<? super E> order;
+
+	/**
+	 * Creates an empty heap ordered by the given Comparator.
+	 * @param order - decides which of two elements is smaller
+	 */
+	public BinaryHeap(Comparator<? super E> order) {
+		this(15, order);
+	}
+
+	/**
+	 * Creates an empty heap with room for initialCapacity elements before growing.
+	 * @param initialCapacity - the initial length of the array
+	 * @param order - decides which of two elements is smaller
+	 */
+	public BinaryHeap(int initialCapacity, Comparator<? super E> order) {
+		if(initialCapacity < 0)
+			throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+		if(order == null)
+			throw new NullPointerException();
+		this.elements = (E[]) new Object[initialCapacity];
+		this.order = order;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public void add(E obj) {
+		if(this.size == this.elements.length)
+			this.elements = Arrays.copyOf(elements, Math.max(4, elements.length * 2));
+		siftUp(size++, obj);
+	}
+
+	@Override
+	public E min() {
+		if(this.isEmpty())
+			throw new NoSuchElementException();
+		return this.elements[0];
+	}
+
+	@Override
+	public E removeMin() {
+		E min = min();
+		E last = this.elements[--size];
+		this.elements[size] = null;
+		if(size > 0)
+			siftDown(0, last);
+		return min;
+	}
+
+	@Override
+	public E replaceMin(E obj) {
+		E min = min();
+		siftDown(0, obj);
+		return min;
+	}
+
+	@Override
+	public void clear() {
+		// Help GC
+		Arrays.fill(elements, 0, size, null);
+		this.size = 0;
+	}
+
+	/**
+	 * Places obj at position hole or above it, moving the larger parents down.
+	 */
+	private void siftUp(int hole, E obj) {
+		while(hole > 0) {
+			int parent = (hole - 1) >>> 1;
+			if(order.compare(obj, elements[parent]) >= 0)
+				break;
+			elements[hole] = elements[parent];
+			hole = parent;
+		}
+		elements[hole] = obj;
+	}
+
+	/**
+	 * Places obj at position hole or below it, moving the smaller children up.
+	 */
+	private void siftDown(int hole, E obj) {
+		int half = size >>> 1;
+		while(hole < half) {
+			int child = 2 * hole + 1;
+			if(child + 1 < size && order.compare(elements[child + 1], elements[child]) < 0)
+				child++;
+			if(order.compare(obj, elements[child]) <= 0)
+				break;
+			elements[hole] = elements[child];
+			hole = child;
+		}
+		elements[hole] = obj;
+	}
+}
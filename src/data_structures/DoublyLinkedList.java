@@ -1,6 +1,8 @@
 package data_structures;
 
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.ListIterator;
 import java.util.NoSuchElementException;
 
 import interfaces.List;
@@ -105,6 +107,13 @@ public class DoublyLinkedList<E> implements List<E>{
 	private Node<E> header;
 	private Node<E> trailer;
 	private int size;
+	// The last node found by position and its position, so that looking up a nearby
+	// position can start from it. Null when there is no such node.
+	private Node<E> cursor;
+	private int cursorIndex;
+	// Counts the structural changes (adds and removes), so list cursors can tell if the
+	// list was changed behind their back
+	private int modCount;
 	
 	public DoublyLinkedList() {
 		// Initialize dummies
@@ -123,16 +132,44 @@ public class DoublyLinkedList<E> implements List<E>{
 		return this.size;
 	}
 
+	/**
+	 * Finds the node at position index, or the trailer if index is size.
+	 * It starts walking from whichever is closest to index: the first node, the trailer or
+	 * the last node found by this method. Looking up positions one after the other, as in
+	 * for(i...) get(i), only moves one node each time.
+	 * @param index - position of the node we want to find
+	 * @return - (Node<E>) The node at the given position
+	 */
 	private Node<E> getNode(int index) {
 		// Check the index is valid
 		if(index < 0 || index >size)
 			throw new IndexOutOfBoundsException();
-		// We start at head
-		Node<E> temp = header.getNext();
+		// Start at the closest end
+		Node<E> temp;
+		int position;
+		if(index <= size - index) {
+			temp = header.getNext();
+			position = 0;
+		}
+		else {
+			temp = trailer;
+			position = size;
+		}
+		// Unless the last node found is even closer
+		if(cursor != null && Math.abs(index - cursorIndex) < Math.abs(index - position)) {
+			temp = cursor;
+			position = cursorIndex;
+		}
 		// Move through the list until we find the node at position index
-		for(int i = 0; i < index; i++)
+		for(; position < index; position++)
 			temp = temp.getNext();
-		// Return the node
+		for(; position > index; position--)
+			temp = temp.getPrev();
+		// Remember it for the next lookup
+		if(temp != trailer) {
+			cursor = temp;
+			cursorIndex = index;
+		}
 		return temp;
 	}
 	
@@ -147,6 +184,7 @@ public class DoublyLinkedList<E> implements List<E>{
 		trailer.getPrev().setNext(newNode);
 		trailer.setPrev(newNode);
 		size++;
+		modCount++;
 	}
 
 	@Override
@@ -159,6 +197,9 @@ public class DoublyLinkedList<E> implements List<E>{
 			curr.getPrev().setNext(newNode);
 			curr.setPrev(newNode);
 			size++;
+			modCount++;
+			// The cursor is curr, which moved one position to the right
+			cursorIndex++;
 		}
 	}
 
@@ -184,10 +225,13 @@ public class DoublyLinkedList<E> implements List<E>{
 		if(index < 0 || index >=size)
 			throw new IndexOutOfBoundsException();
 		Node<E> curr = getNode(index);
+		// The cursor is curr, the node after it takes its position
+		cursor = curr.getNext() != trailer ? curr.getNext() : null;
 		curr.getPrev().setNext(curr.getNext());
 		curr.getNext().setPrev(curr.getPrev());
 		curr.clear();
 		size--;
+		modCount++;
 		return true;
 	}
 
@@ -291,6 +335,132 @@ public class DoublyLinkedList<E> implements List<E>{
 		return new LinkedListIterator<E>();
 	}
 	
+	/**
+	 * Returns a cursor over the list that starts before position index.
+	 * Moving either way, and removing, replacing or adding at the cursor take constant time.
+	 * 
+	 * @param index - position of the element the first call to next() returns
+	 * @return ListIterator for this list
+	 */
+	@Override
+	public ListIterator<E> listIterator(int index) {
+		return new LinkedListCursor(getNode(index), index);
+	}
+	
+	/**
+	 * Bidirectional cursor for the DoublyLinkedList. It sits right before a node, which is
+	 * the trailer when it's at the end, and remembers the last node it returned.
+	 * 
+	 * @author jorge
+	 *
+	 */
+	private class LinkedListCursor implements ListIterator<E> {
+		// The node after the cursor
+		private Node<E> nextNode;
+		// Position of nextNode
+		private int nextIndex;
+		// The last node returned, null if there is none or it was removed
+		private Node<E> lastReturned;
+		// The modCount of the list as this cursor last saw it
+		private int expectedModCount = modCount;
+		
+		public LinkedListCursor(Node<E> nextNode, int index) {
+			this.nextNode = nextNode;
+			this.nextIndex = index;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return nextIndex < size;
+		}
+		
+		@Override
+		public E next() {
+			checkForModification();
+			if(nextNode == trailer)
+				throw new NoSuchElementException();
+			lastReturned = nextNode;
+			nextNode = nextNode.getNext();
+			nextIndex++;
+			return lastReturned.getElement();
+		}
+		
+		@Override
+		public boolean hasPrevious() {
+			return nextIndex > 0;
+		}
+		
+		@Override
+		public E previous() {
+			checkForModification();
+			if(nextNode.getPrev() == header)
+				throw new NoSuchElementException();
+			nextNode = nextNode.getPrev();
+			lastReturned = nextNode;
+			nextIndex--;
+			return lastReturned.getElement();
+		}
+		
+		@Override
+		public int nextIndex() {
+			return nextIndex;
+		}
+		
+		@Override
+		public int previousIndex() {
+			return nextIndex - 1;
+		}
+		
+		@Override
+		public void remove() {
+			if(lastReturned == null)
+				throw new IllegalStateException();
+			checkForModification();
+			// Fix the cursor, which is either right after or right before lastReturned
+			if(lastReturned == nextNode)
+				nextNode = lastReturned.getNext();
+			else
+				nextIndex--;
+			lastReturned.getPrev().setNext(lastReturned.getNext());
+			lastReturned.getNext().setPrev(lastReturned.getPrev());
+			lastReturned.clear();
+			lastReturned = null;
+			size--;
+			expectedModCount = ++modCount;
+			// Positions changed, forget the node getNode() remembers
+			cursor = null;
+		}
+		
+		@Override
+		public void set(E e) {
+			if(lastReturned == null)
+				throw new IllegalStateException();
+			checkForModification();
+			lastReturned.setElement(e);
+		}
+		
+		@Override
+		public void add(E e) {
+			checkForModification();
+			Node<E> newNode = new Node<E>(nextNode, nextNode.getPrev(), e);
+			nextNode.getPrev().setNext(newNode);
+			nextNode.setPrev(newNode);
+			nextIndex++;
+			lastReturned = null;
+			size++;
+			expectedModCount = ++modCount;
+			cursor = null;
+		}
+		
+		/**
+		 * Fails if the list was structurally changed by something other than this cursor.
+		 */
+		private void checkForModification() {
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+		}
+	}
+	
 	
 
 }
\ No newline at end of file
@@ -0,0 +1,205 @@
+package data_structures;
+
+import interfaces.List;
+import interfaces.Map;
+
+/**
+ * Implementation of a Map using a hash table with separate chaining. Each bucket of the
+ * table is a chain of nodes that hold the entries whose keys hash to that bucket.
+ * @author jorge
+ *
+ * @param <K> - Type of the keys
+ * @param <V> - Type of the values
+ */
+public class HashMap<K, V> implements Map<K, V> {
+
+	/**
+	 * Node of a bucket chain. Holds a single key-value pair and a reference to the next
+	 * entry in the same bucket.
+	 * @author jorge
+	 *
+	 * @param <K>
+	 * @param <V>
+	 */
+	private static class Node<K, V> {
+		private final K key;
+		private V value;
+		private Node<K, V> next;
+
+		public Node(K key, V value, Node<K, V> next) {
+			this.key = key;
+			this.value = value;
+			this.next = next;
+		}
+	}
+
+	// The buckets of the table
+	private Node<K, V>[] buckets;
+	// Amount of entries in the table
+	private int size;
+
+	/**
+	 * Default constructor. Creates a table with 16 buckets.
+	 */
+	public HashMap() {
+		this(16);
+	}
+
+	/**
+	 * Creates a table with the given initial amount of buckets.
+	 * @param initialCapacity - amount of buckets the table starts with
+	 */
+	public HashMap(int initialCapacity) {
+		this.buckets = newTable(Math.max(initialCapacity, 1));
+		this.size = 0;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public V get(K key) {
+		Node<K, V> node = findNode(key);
+		return node == null ? null : node.value;
+	}
+
+	@Override
+	public V put(K key, V value) {
+		Node<K, V> node = findNode(key);
+		// Key already present, replace the value
+		if(node != null) {
+			V old = node.value;
+			node.value = value;
+			return old;
+		}
+		// Grow when the average chain would get longer than one node
+		if(size + 1 > buckets.length)
+			rehash(buckets.length * 2);
+		int i = bucketOf(key, buckets.length);
+		// New entries go at the front of the chain
+		buckets[i] = new Node<K, V>(key, value, buckets[i]);
+		size++;
+		return null;
+	}
+
+	@Override
+	public V remove(K key) {
+		int i = bucketOf(key, buckets.length);
+		Node<K, V> previous = null;
+		for(Node<K, V> curr = buckets[i]; curr != null; curr = curr.next) {
+			if(keysEqual(curr.key, key)) {
+				// Unlink the node from the chain
+				if(previous == null)
+					buckets[i] = curr.next;
+				else
+					previous.next = curr.next;
+				size--;
+				return curr.value;
+			}
+			previous = curr;
+		}
+		return null;
+	}
+
+	@Override
+	public boolean containsKey(K key) {
+		return findNode(key) != null;
+	}
+
+	@Override
+	public void clear() {
+		for(int i = 0; i < buckets.length; i++)
+			buckets[i] = null;
+		size = 0;
+	}
+
+	@Override
+	public List<K> getKeys() {
+		List<K> keys = new ArrayList<K>(size);
+		for(Node<K, V> bucket : buckets)
+			for(Node<K, V> curr = bucket; curr != null; curr = curr.next)
+				keys.add(curr.key);
+		return keys;
+	}
+
+	@Override
+	public List<V> getValues() {
+		List<V> values = new ArrayList<V>(size);
+		for(Node<K, V> bucket : buckets)
+			for(Node<K, V> curr = bucket; curr != null; curr = curr.next)
+				values.add(curr.value);
+		return values;
+	}
+
+	/**
+	 * Finds the node that holds key.
+	 * @param key - the key to search for
+	 * @return (Node<K, V>) the node holding key, null if the key is not present
+	 */
+	private Node<K, V> findNode(K key) {
+		for(Node<K, V> curr = buckets[bucketOf(key, buckets.length)]; curr != null; curr = curr.next) {
+			if(keysEqual(curr.key, key))
+				return curr;
+		}
+		return null;
+	}
+
+	/**
+	 * Creates an empty table of buckets. Java can't create an array of a generic type, so
+	 * the array is created for any Node and cast.
+	 * @param capacity - amount of buckets
+	 * @return a table with every bucket empty
+	 */
+	@SuppressWarnings("unchecked")
+	private static <K, V> Node<K, V>[] newTable(int capacity) {
+		return (Node<K, V>[]) new Node<?, ?>[capacity];
+	}
+
+	/**
+	 * Moves every entry to a new table with the given amount of buckets.
+	 * @param capacity - new amount of buckets
+	 */
+	private void rehash(int capacity) {
+		Node<K, V>[] oldBuckets = this.buckets;
+		this.buckets = newTable(capacity);
+		for(Node<K, V> bucket : oldBuckets) {
+			Node<K, V> curr = bucket;
+			while(curr != null) {
+				Node<K, V> next = curr.next;
+				int i = bucketOf(curr.key, capacity);
+				curr.next = buckets[i];
+				buckets[i] = curr;
+				curr = next;
+			}
+		}
+	}
+
+	/**
+	 * Returns the bucket that key belongs to. The null key always goes to bucket 0.
+	 * @param key - the key
+	 * @param capacity - amount of buckets in the table
+	 * @return (int) position of the bucket
+	 */
+	private static int bucketOf(Object key, int capacity) {
+		if(key == null)
+			return 0;
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return (h & 0x7fffffff) % capacity;
+	}
+
+	/**
+	 * Compares two keys, allowing for null keys.
+	 * @return (boolean) True if both keys are equal
+	 */
+	private static boolean keysEqual(Object a, Object b) {
+		return a == null ? b == null : a.equals(b);
+	}
+}
@@ -0,0 +1,221 @@
+package data_structures;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import interfaces.IntList;
+
+/**
+ * Implementation of IntList that stores the values in a plain int array. It is the
+ * primitive counterpart of ArrayList: each value takes four bytes, there is no node or
+ * Integer object per value and the values sit next to each other in memory.
+ * @author jorge
+ *
+ */
+public class IntArrayList implements IntList {
+
+	// An empty array shared by every list created without capacity
+	private static final int[] EMPTY = new int[0];
+
+	// Will hold the data
+	private int[] elements;
+	// How many positions of elements are in use
+	private int size;
+
+	/**
+	 * Default constructor. Creates an empty list, its array is allocated on the first add.
+	 */
+	public IntArrayList() {
+		this.elements = EMPTY;
+		this.size = 0;
+	}
+
+	/**
+	 * Constructs an IntArrayList with room for initialCapacity values before growing.
+	 * @param initialCapacity - the initial length of the array
+	 */
+	public IntArrayList(int initialCapacity) {
+		if(initialCapacity < 0)
+			throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+		this.elements = initialCapacity == 0 ? EMPTY : new int[initialCapacity];
+		this.size = 0;
+	}
+
+	/**
+	 * Constructs an IntArrayList that holds a copy of the given values, in the same order.
+	 * @param values - the values the list starts with
+	 */
+	public IntArrayList(int[] values) {
+		this.elements = values.length == 0 ? EMPTY : values.clone();
+		this.size = values.length;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public void add(int value) {
+		if(this.size == this.elements.length)
+			grow();
+		this.elements[size++] = value;
+	}
+
+	@Override
+	public void add(int index, int value) {
+		if(index < 0 || index > size)
+			throw new IndexOutOfBoundsException();
+		if(this.size == this.elements.length)
+			grow();
+		// Shift the values from index one position to the right
+		System.arraycopy(elements, index, elements, index + 1, size - index);
+		this.elements[index] = value;
+		this.size++;
+	}
+
+	/**
+	 * Makes the array larger, doubling its length, or giving it room for a few values if
+	 * it is empty.
+	 */
+	private void grow() {
+		this.elements = Arrays.copyOf(elements, Math.max(4, elements.length * 2));
+	}
+
+	@Override
+	public int get(int index) {
+		if(index < 0 || index >= size)
+			throw new IndexOutOfBoundsException();
+		return this.elements[index];
+	}
+
+	@Override
+	public int set(int index, int value) {
+		if(index < 0 || index >= size)
+			throw new IndexOutOfBoundsException();
+		int oldValue = this.elements[index];
+		this.elements[index] = value;
+		return oldValue;
+	}
+
+	@Override
+	public boolean remove(int index) {
+		if(index < 0 || index >= size)
+			throw new IndexOutOfBoundsException();
+		// Shift the values after index one position to the left
+		System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+		this.size--;
+		return true;
+	}
+
+	@Override
+	public boolean removeValue(int value) {
+		int index = firstIndex(value);
+		return index >= 0 && remove(index);
+	}
+
+	@Override
+	public boolean contains(int value) {
+		return firstIndex(value) >= 0;
+	}
+
+	@Override
+	public void clear() {
+		// No references to release, the values are simply forgotten
+		this.size = 0;
+	}
+
+	/**
+	 * Removes every instance of value, moving each kept value once.
+	 * @return the total number of instances removed
+	 */
+	@Override
+	public int removeAll(int value) {
+		int kept = 0;
+		for(int i = 0; i < size; i++) {
+			if(elements[i] != value)
+				elements[kept++] = elements[i];
+		}
+		int count = size - kept;
+		this.size = kept;
+		return count;
+	}
+
+	@Override
+	public int firstIndex(int value) {
+		for(int i = 0; i < this.size; i++) {
+			if(this.elements[i] == value)
+				return i;
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndex(int value) {
+		for(int i = this.size - 1; i >= 0; i--) {
+			if(this.elements[i] == value)
+				return i;
+		}
+		return -1;
+	}
+
+	@Override
+	public int first() {
+		if(this.isEmpty())
+			throw new NoSuchElementException();
+		return this.elements[0];
+	}
+
+	@Override
+	public int last() {
+		if(this.isEmpty())
+			throw new NoSuchElementException();
+		return this.elements[this.size - 1];
+	}
+
+	@Override
+	public PrimitiveIterator.OfInt iterator() {
+		return new PrimitiveIterator.OfInt() {
+			// Position of the next value to return
+			private int currentPosition = 0;
+
+			@Override
+			public boolean hasNext() {
+				return currentPosition < size;
+			}
+
+			@Override
+			public int nextInt() {
+				if(currentPosition >= size)
+					throw new NoSuchElementException();
+				return elements[currentPosition++];
+			}
+		};
+	}
+
+	@Override
+	public int[] toArray() {
+		return Arrays.copyOf(elements, size);
+	}
+
+	/**
+	 * Returns a String version of the list in the format { 1, 2, 3 }.
+	 * @return - String with the content of the List.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder str = new StringBuilder("{ ");
+		for(int i = 0; i < size; i++) {
+			if(i > 0)
+				str.append(", ");
+			str.append(elements[i]);
+		}
+		return str.append(" }").toString();
+	}
+}
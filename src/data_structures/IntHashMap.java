@@ -0,0 +1,192 @@
+package data_structures;
+
+/**
+ * Hash table that maps primitive int keys to values. It uses open addressing with
+ * linear probing, so the keys are stored in a plain int array and no Integer objects or
+ * entry nodes are created. This makes it a good fit for looking things up by ID.
+ * @author jorge
+ *
+ * @param <V> - Type of the values stored in the table
+ */
+@SuppressWarnings("unchecked")
+public class IntHashMap<V> {
+
+	// Keys of the occupied slots
+	private int[] keys;
+	// Values of the occupied slots, null means the slot is empty
+	private V[] values;
+	// Amount of keys currently in the table
+	private int size;
+
+	/**
+	 * Default constructor. Creates a table with room for 16 keys before growing.
+	 */
+	public IntHashMap() {
+		this(16);
+	}
+
+	/**
+	 * Creates a table that can hold expectedSize keys without having to grow.
+	 * @param expectedSize - amount of keys we expect to store
+	 */
+	public IntHashMap(int expectedSize) {
+		// Keep the table at most half full, capacity is always a power of two
+		int capacity = 2;
+		while(capacity < expectedSize * 2)
+			capacity <<= 1;
+		this.keys = new int[capacity];
+		this.values = (V[]) new Object[capacity];
+		this.size = 0;
+	}
+
+	/**
+	 * Returns the amount of keys in the table.
+	 * @return (int) amount of keys
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns whether the table is empty.
+	 * @return (boolean) True if empty, false otherwise
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Returns the value mapped to key.
+	 * @param key - the key to search for
+	 * @return (V) the value mapped to key, null if the key is not present
+	 */
+	public V get(int key) {
+		int mask = keys.length - 1;
+		// Walk the probe sequence until we find the key or an empty slot
+		for(int i = hash(key) & mask; values[i] != null; i = (i + 1) & mask) {
+			if(keys[i] == key)
+				return values[i];
+		}
+		return null;
+	}
+
+	/**
+	 * Checks whether key is present in the table.
+	 * @param key - the key to search for
+	 * @return (boolean) True if present, false otherwise
+	 */
+	public boolean containsKey(int key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * Maps key to value, replacing the previous value if the key was already present.
+	 * @param key - the key
+	 * @param value - the value, it can't be null
+	 * @return (V) the value previously mapped to key, null if there was none
+	 * @throws IllegalArgumentException if value is null
+	 */
+	public V put(int key, V value) {
+		if(value == null)
+			throw new IllegalArgumentException("IntHashMap does not allow null values");
+		// Grow before the table gets more than half full
+		if((size + 1) * 2 > keys.length)
+			rehash(keys.length * 2);
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		while(values[i] != null) {
+			if(keys[i] == key) {
+				V old = values[i];
+				values[i] = value;
+				return old;
+			}
+			i = (i + 1) & mask;
+		}
+		keys[i] = key;
+		values[i] = value;
+		size++;
+		return null;
+	}
+
+	/**
+	 * Removes key from the table.
+	 * @param key - the key to remove
+	 * @return (V) the value that was mapped to key, null if it was not present
+	 */
+	public V remove(int key) {
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		while(values[i] != null) {
+			if(keys[i] == key) {
+				V old = values[i];
+				deleteSlot(i);
+				size--;
+				return old;
+			}
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Empties the table.
+	 */
+	public void clear() {
+		for(int i = 0; i < values.length; i++)
+			values[i] = null;
+		size = 0;
+	}
+
+	/**
+	 * Empties slot i and moves back the entries that come after it in the same probe
+	 * run, so that lookups never stop early at a hole. This avoids using tombstones.
+	 * @param i - slot to empty
+	 */
+	private void deleteSlot(int i) {
+		int mask = keys.length - 1;
+		int hole = i;
+		int j = (i + 1) & mask;
+		while(values[j] != null) {
+			int home = hash(keys[j]) & mask;
+			// The entry at j can fill the hole if its home slot is not between the hole and j
+			if(((j - home) & mask) >= ((j - hole) & mask)) {
+				keys[hole] = keys[j];
+				values[hole] = values[j];
+				hole = j;
+			}
+			j = (j + 1) & mask;
+		}
+		values[hole] = null;
+	}
+
+	/**
+	 * Moves every entry to a new table of the given capacity.
+	 * @param capacity - new length of the internal arrays, must be a power of two
+	 */
+	private void rehash(int capacity) {
+		int[] oldKeys = this.keys;
+		V[] oldValues = this.values;
+		this.keys = new int[capacity];
+		this.values = (V[]) new Object[capacity];
+		int mask = capacity - 1;
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldValues[i] != null) {
+				int j = hash(oldKeys[i]) & mask;
+				while(values[j] != null)
+					j = (j + 1) & mask;
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+			}
+		}
+	}
+
+	/**
+	 * Spreads the bits of the key so that consecutive IDs don't form long probe runs.
+	 * @param key - the key to hash
+	 * @return (int) the mixed hash
+	 */
+	private static int hash(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -1,6 +1,8 @@
 package data_structures;
 
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.ListIterator;
 import java.util.NoSuchElementException;
 
 import interfaces.List;
@@ -73,15 +75,21 @@ public class SinglyLinkedList<E> implements List<E>{
 	
 	// Represent the first node in the list
 	private Node<E> head;
+	// Represent the last node in the list, so we can append without walking the chain
+	private Node<E> tail;
 	// Tracks the current size of the list
 	private int size;
+	// Counts the structural changes (adds and removes), so cursors can tell if the list
+	// was changed behind their back
+	private int modCount;
 	
 
 	/**
-	 * Creates an empty list. Head starts as null since there is no data yet. Size is 0.
+	 * Creates an empty list. Head and tail start as null since there is no data yet. Size is 0.
 	 */
 	public SinglyLinkedList() {
 		this.head = null;
+		this.tail = null;
 		this.size = 0;
 	}
 	
@@ -100,7 +108,8 @@ public class SinglyLinkedList<E> implements List<E>{
 
 	/**
 	 * Adds a new element to the list. In this case we appends a node with the value obj
-	 * to the end of the chain
+	 * to the end of the chain. Since we keep a reference to the last node this doesn't
+	 * need to walk the list.
 	 */
 	@Override
 	public void add(E obj) {
@@ -110,17 +119,13 @@ public class SinglyLinkedList<E> implements List<E>{
 		// If list is empty then the new node is now head.
 		if(head == null)
 			head = newNode;
-		else {
-			// Lets search for the last node in the list
-			Node<E> temp = head;
-			while(temp.getNext() != null) {
-				temp = temp.getNext();
-			}
+		else
 			// Set the next of the last node to the new node.
-			// We now have a new last node
-			temp.setNext(newNode);
-		}
+			tail.setNext(newNode);
+		// We now have a new last node
+		tail = newNode;
 		this.size++;
+		this.modCount++;
 		
 	}
 	/**
@@ -154,6 +159,11 @@ public class SinglyLinkedList<E> implements List<E>{
 		// Check index is valid
 		if(index < 0 || index > size)
 			throw new IndexOutOfBoundsException();
+		// Adding at the end is the same as appending, which doesn't need to walk the list
+		if(index == size) {
+			add(obj);
+			return;
+		}
 		// Create the node to be added
 		Node<E> newNode = new Node<E>(obj);
 		// If index is 0 that means this element will be the new head node
@@ -204,6 +214,7 @@ public class SinglyLinkedList<E> implements List<E>{
 
 		}
 		this.size++;
+		this.modCount++;
 	}
 
 	/**
@@ -247,7 +258,7 @@ public class SinglyLinkedList<E> implements List<E>{
 	@Override
 	public boolean remove(int index) {
 		// Check index is valid
-		if(index < 0 || index > size)
+		if(index < 0 || index >= size)
 			throw new IndexOutOfBoundsException();
 		// If it's the first node
 		if(index == 0) {
@@ -258,6 +269,9 @@ public class SinglyLinkedList<E> implements List<E>{
 			 * Notice this still works if there is only one node. 
 			 */
 			this.head = this.head.getNext();
+			// If it was the only node the list has no last node now
+			if(this.head == null)
+				this.tail = null;
 			// Help gc
 			holdNode.clear();
 		}
@@ -284,10 +298,14 @@ public class SinglyLinkedList<E> implements List<E>{
 			Node<E> nodeToRemove = previousNode.getNext();
 			// Update references
 			previousNode.setNext(nodeToRemove.getNext());
+			// If we removed the last node, the previous node is the new last node
+			if(nodeToRemove == this.tail)
+				this.tail = previousNode;
 			// Help GC
 			nodeToRemove.clear();
 		}
 		size--;
+		modCount++;
 		return true;
 	}
 
@@ -357,7 +375,8 @@ public class SinglyLinkedList<E> implements List<E>{
 		while(!isEmpty()) remove(0);
 		// Reset values for empty list
 		size = 0;
-		head = null;		
+		head = null;
+		tail = null;
 	}
 
 	/**
@@ -389,9 +408,13 @@ public class SinglyLinkedList<E> implements List<E>{
 					// Update references
 					previousNode.setNext(currentNode.getNext());
 					currentNode = currentNode.getNext();
+					// If we removed the last node, the previous node is the new last node
+					if(holdNode == tail)
+						tail = previousNode;
 					holdNode.clear();
 					// Need to decrease size as we remove a node
 					size--;
+					modCount++;
 				}
 				count++;
 			}
@@ -452,7 +475,7 @@ public class SinglyLinkedList<E> implements List<E>{
 	public E last() {
 		if(this.isEmpty())
 			throw new NoSuchElementException();
-		return this.get(size-1);
+		return this.tail.getElement();
 	}
 	/**
 	 * Returns a String version of the SinglyLinkedList. 
@@ -482,6 +505,162 @@ public class SinglyLinkedList<E> implements List<E>{
 		// TODO Auto-generated method stub
 		return new LinkedListIterator<E>();
 	}
+	/**
+	 * Returns a cursor over the list that starts before position index.
+	 * Moving forward, and removing, replacing or adding at the cursor take constant time,
+	 * so a single pass that edits the list is linear. Since nodes don't know the node
+	 * before them, previous() has to walk from head to find it.
+	 * 
+	 * @param index - position of the element the first call to next() returns
+	 * @return ListIterator for this list
+	 */
+	@Override
+	public ListIterator<E> listIterator(int index) {
+		if(index < 0 || index > size)
+			throw new IndexOutOfBoundsException();
+		return new LinkedListCursor(index);
+	}
+	/**
+	 * Bidirectional cursor for the SinglyLinkedList. It sits between two nodes and
+	 * remembers the last node it returned along with the node before that one, which is
+	 * what remove() needs to unlink it without walking the list.
+	 * 
+	 * @author jorge
+	 *
+	 */
+	private class LinkedListCursor implements ListIterator<E> {
+		// The node before the cursor, null if the cursor is at the start
+		private Node<E> previousNode;
+		// The node after the cursor, null if the cursor is at the end
+		private Node<E> nextNode;
+		// Position of nextNode
+		private int nextIndex;
+		// The last node returned, null if there is none or it was removed
+		private Node<E> lastReturned;
+		// The node before lastReturned, null if lastReturned is head
+		private Node<E> beforeLastReturned;
+		// The modCount of the list as this cursor last saw it
+		private int expectedModCount = modCount;
+		
+		public LinkedListCursor(int index) {
+			this.previousNode = index == 0 ? null : getNode(index - 1);
+			this.nextNode = previousNode == null ? head : previousNode.getNext();
+			this.nextIndex = index;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return nextIndex < size;
+		}
+		
+		@Override
+		public E next() {
+			checkForModification();
+			if(nextNode == null)
+				throw new NoSuchElementException();
+			beforeLastReturned = previousNode;
+			lastReturned = nextNode;
+			previousNode = nextNode;
+			nextNode = nextNode.getNext();
+			nextIndex++;
+			return lastReturned.getElement();
+		}
+		
+		@Override
+		public boolean hasPrevious() {
+			return nextIndex > 0;
+		}
+		
+		@Override
+		public E previous() {
+			checkForModification();
+			if(previousNode == null)
+				throw new NoSuchElementException();
+			// Walk from head to find the node before previousNode
+			Node<E> before = null;
+			if(previousNode != head) {
+				before = head;
+				while(before.getNext() != previousNode)
+					before = before.getNext();
+			}
+			lastReturned = previousNode;
+			beforeLastReturned = before;
+			nextNode = previousNode;
+			previousNode = before;
+			nextIndex--;
+			return lastReturned.getElement();
+		}
+		
+		@Override
+		public int nextIndex() {
+			return nextIndex;
+		}
+		
+		@Override
+		public int previousIndex() {
+			return nextIndex - 1;
+		}
+		
+		@Override
+		public void remove() {
+			if(lastReturned == null)
+				throw new IllegalStateException();
+			checkForModification();
+			Node<E> after = lastReturned.getNext();
+			// Unlink lastReturned from the node before it
+			if(beforeLastReturned == null)
+				head = after;
+			else
+				beforeLastReturned.setNext(after);
+			if(lastReturned == tail)
+				tail = beforeLastReturned;
+			// Fix the cursor, which is either right after or right before lastReturned
+			if(lastReturned == previousNode) {
+				previousNode = beforeLastReturned;
+				nextIndex--;
+			}
+			else
+				nextNode = after;
+			lastReturned.clear();
+			lastReturned = null;
+			size--;
+			expectedModCount = ++modCount;
+		}
+		
+		@Override
+		public void set(E e) {
+			if(lastReturned == null)
+				throw new IllegalStateException();
+			checkForModification();
+			lastReturned.setElement(e);
+		}
+		
+		@Override
+		public void add(E e) {
+			checkForModification();
+			// The new node goes between previousNode and nextNode
+			Node<E> newNode = new Node<E>(nextNode, e);
+			if(previousNode == null)
+				head = newNode;
+			else
+				previousNode.setNext(newNode);
+			if(nextNode == null)
+				tail = newNode;
+			previousNode = newNode;
+			nextIndex++;
+			lastReturned = null;
+			size++;
+			expectedModCount = ++modCount;
+		}
+		
+		/**
+		 * Fails if the list was structurally changed by something other than this cursor.
+		 */
+		private void checkForModification() {
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+		}
+	}
 	/**
 	 * This class implements an Iterator for the LinkedList implemented here.
 	 *  
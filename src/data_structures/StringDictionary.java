@@ -0,0 +1,36 @@
+package data_structures;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary that keeps a single shared instance of each distinct String. Values that
+ * repeat many times, like the genres of a catalog, can then be stored once and compared
+ * by reference.
+ *
+ * It is backed by a ConcurrentHashMap, so several threads can intern values at the same
+ * time without waiting on each other.
+ * @author jorge
+ *
+ */
+public class StringDictionary {
+
+	// Shared instance of each value, keyed by itself
+	private final ConcurrentHashMap<String, String> values = new ConcurrentHashMap<String, String>();
+
+	/**
+	 * Returns the shared instance of value, adding value to the dictionary if it's not in
+	 * it yet.
+	 * @param value - the value to look up
+	 * @return (String) the shared instance equal to value, null if value is null
+	 */
+	public String intern(String value) {
+		if(value == null)
+			return null;
+		//a plain get() doesn't lock anything, and most values are already in
+		String shared = values.get(value);
+		if(shared == null) {
+			shared = values.putIfAbsent(value, value);
+		}
+		return shared == null ? value : shared;
+	}
+}
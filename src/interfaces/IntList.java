@@ -0,0 +1,131 @@
+package interfaces;
+
+import java.util.PrimitiveIterator;
+
+/**
+ * Interface that describes the behavior of a List of primitive ints.
+ *
+ * It works like List, but the values are stored and returned as ints
+ * so no Integer objects are created. Since remove(int) can't take both
+ * a position and a value, removing by value is done with removeValue().
+ * @author jorge
+ *
+ */
+public interface IntList {
+	/**
+	 * Returns the size of the List.
+	 * @return (int) size of the list
+	 */
+	public int size();
+
+	/**
+	 * Returns whether the List is empty of not.
+	 * @return (boolean) True if empty, false otherwise
+	 */
+	public boolean isEmpty();
+
+	/**
+	 * Adds a value to the end of the List
+	 * @param value - The value we wish to add to the List
+	 */
+	public void add(int value);
+
+	/**
+	 * Adds a value to the position given by index.
+	 * @param index - position we want to add the value to.
+	 * @param value - the value we wish to add
+	 * @throws IndexOutOfBoundsException if the index is not valid
+	 */
+	public void add(int index, int value);
+
+	/**
+	 * Returns the value at the given position
+	 * @param index - position of the value we want
+	 * @throws IndexOutOfBoundsException if the index is not valid
+	 * @return (int) value at position index
+	 */
+	public int get(int index);
+
+	/**
+	 * Replaces the value at the position given by index.
+	 * @param index - position we want to replace
+	 * @param value - the new value we want to place
+	 * @throws IndexOutOfBoundsException if the index is not valid
+	 * @return (int) the old value at position index (the replaced value)
+	 */
+	public int set(int index, int value);
+
+	/**
+	 * Removes the value at position index
+	 * @param index - The position of the value we want to remove
+	 * @return (boolean) Always true since the position has to be valid to be removed.
+	 * @throws IndexOutOfBoundsException if the index is not valid
+	 */
+	public boolean remove(int index);
+
+	/**
+	 * Removes the first instance of value.
+	 * @param value - the value we want to remove
+	 * @return (boolean) True if removed, false if it's not present in the List
+	 */
+	public boolean removeValue(int value);
+
+	/**
+	 * Checks whether value is present in the List
+	 * @param value - the value we want to verify its existence
+	 * @return (boolean) True if present, false otherwise
+	 */
+	public boolean contains(int value);
+
+	/**
+	 * Empties the List.
+	 */
+	public void clear();
+
+	/**
+	 * Removes every instance of value.
+	 * @param value - the value we want to remove
+	 * @return (int) number of entries that were removed.
+	 */
+	public int removeAll(int value);
+
+	/**
+	 * Returns the position where value first appears.
+	 * @param value - value we want to search for
+	 * @return (int) position where value first appears in the List, -1 if not found
+	 */
+	public int firstIndex(int value);
+
+	/**
+	 * Returns the position where value last appears.
+	 * @param value - value we want to search for
+	 * @return (int) position where value last appears in the List, -1 if not found
+	 */
+	public int lastIndex(int value);
+
+	/**
+	 * Returns the first value in the List
+	 * @return (int) First value in the List
+	 * @throws java.util.NoSuchElementException if the List is empty
+	 */
+	public int first();
+
+	/**
+	 * Returns the last value in the List.
+	 * @return (int) last value in the List
+	 * @throws java.util.NoSuchElementException if the List is empty
+	 */
+	public int last();
+
+	/**
+	 * Returns an iterator over the values of the List that doesn't box them.
+	 * @return (PrimitiveIterator.OfInt) iterator in List order
+	 */
+	public PrimitiveIterator.OfInt iterator();
+
+	/**
+	 * Copies the values of the List into a new array.
+	 * @return (int[]) the values in List order
+	 */
+	public int[] toArray();
+}
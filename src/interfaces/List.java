@@ -1,5 +1,11 @@
 package interfaces;
 
+import java.util.ListIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * Interface that describes the behavior of a List.
  * 
@@ -113,4 +119,52 @@ public interface List<E> extends Iterable<E> {
 	 */
 	public E last();
 	
+	/**
+	 * Returns a cursor that can move both ways through the List and remove, replace or
+	 * add elements where it is, starting before the element at position index.
+	 * The cursor is fail-fast: if the List is structurally changed by anything other than
+	 * the cursor itself, its next operation throws ConcurrentModificationException.
+	 * @param index - position of the element the first call to next() returns
+	 * @return (ListIterator) cursor positioned before index
+	 * @throws IndexOutOfBoundsException if index is not between 0 and size
+	 */
+	public ListIterator<E> listIterator(int index);
+	
+	/**
+	 * Returns a cursor that starts at the beginning of the List.
+	 * @return (ListIterator) cursor positioned before the first element
+	 */
+	public default ListIterator<E> listIterator() {
+		return listIterator(0);
+	}
+	
+	/**
+	 * Returns a Spliterator over the elements of the List, in List order, that knows the
+	 * size of the List. By default it walks iterator() and splits off growing batches of
+	 * elements copied into arrays, which suits lists that can't jump to a position.
+	 * Lists that can should override it to split by position.
+	 * @return (Spliterator) Spliterator over the List
+	 */
+	@Override
+	public default Spliterator<E> spliterator() {
+		return Spliterators.spliterator(iterator(), size(), Spliterator.ORDERED);
+	}
+	
+	/**
+	 * Returns a sequential Stream over the elements of the List, in List order.
+	 * @return (Stream) Stream of the elements
+	 */
+	public default Stream<E> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+	
+	/**
+	 * Returns a Stream over the elements of the List that may run in parallel on the
+	 * common ForkJoinPool. The List must not be changed while the Stream runs.
+	 * @return (Stream) possibly parallel Stream of the elements
+	 */
+	public default Stream<E> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
+	
 }
@@ -0,0 +1,72 @@
+package interfaces;
+
+/**
+ * Interface that describes the behavior of a Map.
+ *
+ * It's a type of collection that associates each key with a single value.
+ * Keys are unique, adding a value with a key that is already present
+ * replaces the old value.
+ * @author jorge
+ *
+ * @param <K>
+ * @param <V>
+ */
+public interface Map<K, V> {
+	/**
+	 * Returns the amount of keys in the Map.
+	 * @return (int) size of the map
+	 */
+	public int size();
+
+	/**
+	 * Returns whether the Map is empty or not.
+	 * @return (boolean) True if empty, false otherwise
+	 */
+	public boolean isEmpty();
+
+	/**
+	 * Returns the value associated with key.
+	 * @param key - the key we want the value of
+	 * @return (V) the value associated with key, null if the key is not present
+	 */
+	public V get(K key);
+
+	/**
+	 * Associates value with key, replacing the previous value if the key was present.
+	 * @param key - the key
+	 * @param value - the value to associate with key
+	 * @return (V) the previous value associated with key, null if there was none
+	 */
+	public V put(K key, V value);
+
+	/**
+	 * Removes key and its value from the Map.
+	 * @param key - the key we want to remove
+	 * @return (V) the value that was associated with key, null if it was not present
+	 */
+	public V remove(K key);
+
+	/**
+	 * Checks whether key is present in the Map.
+	 * @param key - the key we want to verify its existence
+	 * @return (boolean) True if present, false otherwise
+	 */
+	public boolean containsKey(K key);
+
+	/**
+	 * Empties the Map.
+	 */
+	public void clear();
+
+	/**
+	 * Returns a List with every key in the Map.
+	 * @return (List<K>) the keys of the map
+	 */
+	public List<K> getKeys();
+
+	/**
+	 * Returns a List with every value in the Map.
+	 * @return (List<V>) the values of the map
+	 */
+	public List<V> getValues();
+}
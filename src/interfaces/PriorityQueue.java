@@ -0,0 +1,59 @@
+package interfaces;
+
+/**
+ * Interface that describes the behavior of a Priority Queue.
+ *
+ * It's a type of collection that always knows its smallest element, as
+ * given by the order of the queue, and removes elements smallest first.
+ * Elements that are equal in that order come out in no particular order.
+ * @author jorge
+ *
+ * @param <E>
+ */
+public interface PriorityQueue<E> {
+	/**
+	 * Returns the amount of elements in the Priority Queue.
+	 * @return (int) size of the queue
+	 */
+	public int size();
+
+	/**
+	 * Returns whether the Priority Queue is empty or not.
+	 * @return (boolean) True if empty, false otherwise
+	 */
+	public boolean isEmpty();
+
+	/**
+	 * Adds an element to the Priority Queue.
+	 * @param obj - The element we wish to add
+	 */
+	public void add(E obj);
+
+	/**
+	 * Returns the smallest element without removing it.
+	 * @return (E) smallest element in the queue
+	 * @throws java.util.NoSuchElementException if the queue is empty
+	 */
+	public E min();
+
+	/**
+	 * Removes and returns the smallest element.
+	 * @return (E) the element that was removed
+	 * @throws java.util.NoSuchElementException if the queue is empty
+	 */
+	public E removeMin();
+
+	/**
+	 * Removes the smallest element and adds another one in a single step,
+	 * which is cheaper than calling removeMin() and then add().
+	 * @param obj - The element we wish to add
+	 * @return (E) the element that was removed
+	 * @throws java.util.NoSuchElementException if the queue is empty
+	 */
+	public E replaceMin(E obj);
+
+	/**
+	 * Empties the Priority Queue.
+	 */
+	public void clear();
+}
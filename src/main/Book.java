@@ -1,7 +1,6 @@
 package main;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 
 /**
  * This class represents a book in a library. It contains
@@ -27,16 +26,41 @@ public class Book {
 	 * What genre the book belongs to
 	 */
 	private String genre;
+	/**
+	 * Value of lastCheckOut when the book has never been
+	 * checked out
+	 */
+	private static final int NO_DATE = Integer.MIN_VALUE;
+	
 	/**
 	 * The last date where someone borrowed the book from
-	 * the library
+	 * the library, as a count of days since 1970-01-01
 	 */
-	private LocalDate lastCheckOut;
+	private volatile int lastCheckOut;
 	/**
 	 * Indicates whether the book is currently checked out
 	 * of the library
 	 */
-	private Boolean checkedOut;
+	private volatile Boolean checkedOut;
+	/**
+	 * The catalog this book belongs to, if any. It is notified when the
+	 * ID, title, author, genre or check out state change so it can keep
+	 * its indexes and totals up to date
+	 */
+	private volatile LibraryCatalog owner;
+	/**
+	 * Position of the book in the columns of its catalog, -1 if it
+	 * doesn't belong to one. It is guarded by the catalog's lock
+	 */
+	private int slot = -1;
+	/**
+	 * The fees on the book as of the day in feesDay, so that
+	 * asking for them again on the same day doesn't need to
+	 * calculate them again. Both are guarded by the book's
+	 * monitor, as is every change to the check out state
+	 */
+	private float fees;
+	private int feesDay = NO_DATE;
 	
 	/**
 	 * Main constructor for the Book class.
@@ -52,7 +76,25 @@ public class Book {
 		this.title = title;
 		this.author = author;
 		this.genre = genre;
-		this.lastCheckOut = LocalDate.parse(lastCheckOut);
+		this.lastCheckOut = lastCheckOut == null ? NO_DATE : (int) LocalDate.parse(lastCheckOut).toEpochDay();
+		this.checkedOut = checkedOut;
+	}
+	/**
+	 * Constructor for the Book class that receives the last check out
+	 * date as a count of days since 1970-01-01, which avoids parsing it.
+	 * @param id Unique number that identifies the book
+	 * @param title Name of the book
+	 * @param author Who authored the book
+	 * @param genre What genre the book belongs to
+	 * @param lastCheckOutDay The last day where someone borrowed the book from the library
+	 * @param checkedOut Indicates whether the book is currently checked out of the library
+	 */
+	public Book(Integer id, String title, String author, String genre, int lastCheckOutDay, boolean checkedOut) {
+		this.id = id;
+		this.title = title;
+		this.author = author;
+		this.genre = genre;
+		this.lastCheckOut = lastCheckOutDay;
 		this.checkedOut = checkedOut;
 	}
 	/**
@@ -104,8 +146,25 @@ public class Book {
 	/**
 	 * Assigns an ID to the book in the library.
 	 * @param id The ID the book will have in the library
+	 * @throws IllegalArgumentException if the book belongs to a catalog
+	 * and the ID is null or belongs to another book of that catalog, in
+	 * which case the ID is not changed
 	 */
 	public void setId(Integer id) {
+		LibraryCatalog catalog = owner;
+		if (catalog != null) {
+			catalog.changeId(this, id);
+		}
+		else {
+			this.id = id;
+		}
+	}
+	/**
+	 * Assigns an ID without notifying the owner. Called by the catalog
+	 * once it has checked that the ID is free.
+	 * @param id The ID the book will have in the library
+	 */
+	void assignId(Integer id) {
 		this.id = id;
 	}
 	/**
@@ -120,6 +179,20 @@ public class Book {
 	 * @param title The title to be assigned to the book
 	 */
 	public void setTitle(String title) {
+		LibraryCatalog catalog = owner;
+		if (catalog != null) {
+			catalog.changeTitle(this, title);
+		}
+		else {
+			this.title = title;
+		}
+	}
+	/**
+	 * Assigns a title without notifying the owner. Called by the catalog
+	 * while it holds its write lock.
+	 * @param title The title the book will have
+	 */
+	void assignTitle(String title) {
 		this.title = title;
 	}
 	/**
@@ -134,6 +207,20 @@ public class Book {
 	 * @param author The author's name to be assigned to the book
 	 */
 	public void setAuthor(String author) {
+		LibraryCatalog catalog = owner;
+		if (catalog != null) {
+			catalog.changeAuthor(this, author);
+		}
+		else {
+			this.author = author;
+		}
+	}
+	/**
+	 * Assigns an author without notifying the owner. Called by the catalog
+	 * while it holds its write lock.
+	 * @param author The author the book will have
+	 */
+	void assignAuthor(String author) {
 		this.author = author;
 	}
 	/**
@@ -148,6 +235,20 @@ public class Book {
 	 * @param genre The genre of the book
 	 */
 	public void setGenre(String genre) {
+		LibraryCatalog catalog = owner;
+		if (catalog != null) {
+			catalog.changeGenre(this, genre);
+		}
+		else {
+			this.genre = genre;
+		}
+	}
+	/**
+	 * Assigns a genre without notifying the owner. Called by the catalog
+	 * while it holds its write lock.
+	 * @param genre The genre the book will have
+	 */
+	void assignGenre(String genre) {
 		this.genre = genre;
 	}
 	/**
@@ -155,6 +256,14 @@ public class Book {
 	 * @return The book's last check out date
 	 */
 	public LocalDate getLastCheckOut() {
+		return lastCheckOut == NO_DATE ? null : LocalDate.ofEpochDay(lastCheckOut);
+	}
+	/**
+	 * Gets this book's last check out date as a count of days since
+	 * 1970-01-01.
+	 * @return The book's last check out day
+	 */
+	public int getLastCheckOutDay() {
 		return lastCheckOut;
 	}
 	/**
@@ -162,7 +271,18 @@ public class Book {
 	 * @param lastCheckOut Date the book was checked out form the library
 	 */
 	public void setLastCheckOut(LocalDate lastCheckOut) {
-		this.lastCheckOut = lastCheckOut;
+		setLastCheckOutDay(lastCheckOut == null ? NO_DATE : (int) lastCheckOut.toEpochDay());
+	}
+	/**
+	 * Assigns a check out date as a count of days since 1970-01-01.
+	 * @param lastCheckOutDay Day the book was checked out form the library
+	 */
+	public void setLastCheckOutDay(int lastCheckOutDay) {
+		synchronized (this) {
+			this.lastCheckOut = lastCheckOutDay;
+			this.feesDay = NO_DATE;
+		}
+		notifyCirculation();
 	}
 	/**
 	 * Checks if the book is currently checked out of the library.
@@ -176,7 +296,74 @@ public class Book {
 	 * @param checkedOut Whether the book is currently checked out
 	 */
 	public void setCheckedOut(boolean checkedOut) {
-		this.checkedOut = checkedOut;
+		synchronized (this) {
+			this.checkedOut = checkedOut;
+			this.feesDay = NO_DATE;
+		}
+		notifyCirculation();
+	}
+	/**
+	 * Checks the book out on the given day, unless it is already checked
+	 * out, without notifying the owner. The caller must hold the book's
+	 * monitor and let the owner know about the change after releasing it.
+	 * @param today The check out day, as a count of days since 1970-01-01
+	 * @return true if the book was checked out by this call
+	 */
+	boolean applyCheckOut(int today) {
+		if (checkedOut) {
+			return false;
+		}
+		this.checkedOut = true;
+		this.lastCheckOut = today;
+		this.feesDay = NO_DATE;
+		return true;
+	}
+	/**
+	 * Returns the book, unless it is not checked out, without notifying
+	 * the owner. The caller must hold the book's monitor and let the owner
+	 * know about the change after releasing it.
+	 * @return true if the book was returned by this call
+	 */
+	boolean applyCheckIn() {
+		if (!checkedOut) {
+			return false;
+		}
+		this.checkedOut = false;
+		this.feesDay = NO_DATE;
+		return true;
+	}
+	/**
+	 * Lets the owner know that the check out state changed. It is called
+	 * after releasing the book's monitor so that the owner can take its
+	 * own locks without any risk of deadlock.
+	 */
+	private void notifyCirculation() {
+		LibraryCatalog catalog = owner;
+		if (catalog != null) {
+			catalog.circulationChanged(this);
+		}
+	}
+	/**
+	 * Assigns the catalog that has to be notified of changes to
+	 * this book's indexed fields.
+	 * @param owner The catalog the book belongs to, null if none
+	 */
+	void setOwner(LibraryCatalog owner) {
+		this.owner = owner;
+	}
+	/**
+	 * Gets the position of the book in the columns of its catalog.
+	 * @return The slot of the book, -1 if it doesn't belong to a catalog
+	 */
+	int getSlot() {
+		return slot;
+	}
+	/**
+	 * Assigns the position of the book in the columns of its catalog.
+	 * @param slot The slot of the book, -1 if it is removed
+	 */
+	void setSlot(int slot) {
+		this.slot = slot;
 	}
 	
 	/**
@@ -197,32 +384,46 @@ public class Book {
 	
 	/**
 	 * Method to calculate the fees on a book based on if the book is currently
-	 * checked out and the last check out date.
+	 * checked out and the last check out date. "Today" is the business date
+	 * of the catalog the book belongs to, or September 15, 2023 if it doesn't
+	 * belong to one.
 	 * @return A float value representing the fees, in dollars, on a book
 	 */
 	public float calculateFees() {
+		return calculateFees(owner != null ? owner.getBusinessDay() : LibraryCatalog.DEFAULT_BUSINESS_DAY);
+	}
+	/**
+	 * Method to calculate the fees on a book as of the given day. The result
+	 * is kept, so asking again for the same day doesn't calculate it again.
+	 * @param today The day to calculate the fees for, as a count of days
+	 * since 1970-01-01
+	 * @return A float value representing the fees, in dollars, on a book
+	 */
+	public synchronized float calculateFees(int today) {
 		/*
 		 * fee (if applicable) = base fee + 1.5 per additional day
 		 */
+		if (feesDay == today) {
+			return fees;
+		}
 		
 		//Book has not been checked out
 		if (!this.isCheckedOut()) {
-			return 0;
-		}
-		
-		//Specifications say to take September 15, 2023 as "today's date"
-		LocalDate currentDate = LocalDate.parse("2023-09-15");
-		LocalDate cutOffDate = this.lastCheckOut.plusDays(31);
-		
-		long daysOverdue = cutOffDate.until(currentDate, ChronoUnit.DAYS);
-		
-		if (daysOverdue < 0) {
-			return 0;
+			fees = 0;
 		}
 		else {
-			double fees = 10 + 1.5 * daysOverdue;
-			return (float) fees;
+			int cutOffDay = this.lastCheckOut + 31;
+			long daysOverdue = (long) today - cutOffDay;
+			
+			if (daysOverdue < 0) {
+				fees = 0;
+			}
+			else {
+				double fee = 10 + 1.5 * daysOverdue;
+				fees = (float) fee;
+			}
 		}
-		
+		feesDay = today;
+		return fees;
 	}
 }
@@ -0,0 +1,189 @@
+package main;
+
+import java.util.Arrays;
+
+import data_structures.AtomicBitSet;
+
+/**
+ * The books of a catalog stored by column, so that scans over the whole
+ * catalog walk a few primitive arrays instead of following a reference
+ * to every Book. Each book has a slot, and its last check out day and
+ * check out state are kept at that position of the matching column.
+ *
+ * Slots follow catalog order: a book added to the catalog gets the slot
+ * after the last one used, and a removed book leaves its slot empty
+ * instead of having another book moved into it. Once the columns are
+ * full and at least half of their slots are empty, the books are moved
+ * down over the empty slots, keeping their order. So walking the slots
+ * in ascending order visits the books in catalog order.
+ *
+ * The Book objects are still the ones handed out by the catalog, the
+ * columns are kept up to date by the catalog as the books change, and
+ * bookAt() gives back the Book in a slot when a scan needs it.
+ *
+ * Adding and removing books must be done while holding the catalog's
+ * write lock. Check out state may change while holding the read lock and
+ * the monitor of the book, so a scan may see each book as it was at a
+ * slightly different moment.
+ * @author jorge
+ *
+ */
+final class BookColumns {
+	private Book[] books;
+	private int[] lastCheckOutDays;
+	/**
+	 * Slots of the books that are checked out
+	 */
+	private final AtomicBitSet checkedOut;
+	/**
+	 * Amount of books in the columns
+	 */
+	private int size;
+	/**
+	 * Amount of slots used so far, including the empty ones
+	 */
+	private int end;
+
+	/**
+	 * Creates empty columns with room for the given amount of books.
+	 * @param capacity Amount of books expected
+	 */
+	BookColumns(int capacity) {
+		capacity = Math.max(capacity, 16);
+		this.books = new Book[capacity];
+		this.lastCheckOutDays = new int[capacity];
+		this.checkedOut = new AtomicBitSet(capacity);
+	}
+
+	/**
+	 * Returns the amount of books in the columns.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the amount of slots used, including the empty ones. Every
+	 * book is in a slot below it.
+	 */
+	int slots() {
+		return end;
+	}
+
+	/**
+	 * Returns the book stored in a slot.
+	 * @param slot A slot from 0 to slots() - 1
+	 * @return The book in the slot, null if the slot is empty
+	 */
+	Book bookAt(int slot) {
+		return books[slot];
+	}
+
+	/**
+	 * Finds the next slot of a checked out book.
+	 * @param slot The slot to start looking from
+	 * @return The slot, -1 if there are no more checked out books
+	 */
+	int nextCheckedOut(int slot) {
+		int next = checkedOut.nextSetBit(slot);
+		return next < end ? next : -1;
+	}
+
+	/**
+	 * Adds a book to the slot after the last one used.
+	 * @param book The book to be added
+	 */
+	void add(Book book) {
+		if (end == books.length) {
+			if (size <= books.length / 2) {
+				compact();
+			}
+			else {
+				int capacity = books.length * 2;
+				books = Arrays.copyOf(books, capacity);
+				lastCheckOutDays = Arrays.copyOf(lastCheckOutDays, capacity);
+				checkedOut.ensureCapacity(capacity);
+			}
+		}
+		int slot = end++;
+		size++;
+		book.setSlot(slot);
+		books[slot] = book;
+		synchronized (book) {
+			circulationChanged(book);
+		}
+	}
+
+	/**
+	 * Removes a book, leaving its slot empty.
+	 * @param book The book to be removed
+	 */
+	void remove(Book book) {
+		int slot = book.getSlot();
+		books[slot] = null;
+		checkedOut.clear(slot);
+		size--;
+		book.setSlot(-1);
+	}
+
+	/**
+	 * Moves every book down over the empty slots before it, keeping the
+	 * order of the books.
+	 */
+	private void compact() {
+		int to = 0;
+		for (int from = 0; from < end; from++) {
+			Book e = books[from];
+			if (e == null) {
+				continue;
+			}
+			if (to != from) {
+				books[to] = e;
+				lastCheckOutDays[to] = lastCheckOutDays[from];
+				checkedOut.set(to, checkedOut.get(from));
+				e.setSlot(to);
+			}
+			to++;
+		}
+		for (int i = to; i < end; i++) {
+			books[i] = null;
+			checkedOut.clear(i);
+		}
+		end = to;
+	}
+
+	/**
+	 * Copies the check out state of a book into its slot. The caller must
+	 * hold the book's monitor.
+	 */
+	void circulationChanged(Book book) {
+		int slot = book.getSlot();
+		lastCheckOutDays[slot] = book.getLastCheckOutDay();
+		checkedOut.set(slot, book.isCheckedOut());
+	}
+
+	/**
+	 * Counts the books that are checked out.
+	 */
+	int countCheckedOut() {
+		return checkedOut.cardinality();
+	}
+
+	/**
+	 * Adds up the fees of every checked out book as of the given day, with
+	 * the same formula as Book.calculateFees().
+	 * @param today The day to calculate the fees for, as a count of days
+	 * since 1970-01-01
+	 * @return The fees, in dollars, owed for every book
+	 */
+	float overdueFees(int today) {
+		float total = 0;
+		for (int i = nextCheckedOut(0); i >= 0; i = nextCheckedOut(i + 1)) {
+			long daysOverdue = (long) today - (lastCheckOutDays[i] + 31);
+			if (daysOverdue >= 0) {
+				total += (float) (10 + 1.5 * daysOverdue);
+			}
+		}
+		return total;
+	}
+}
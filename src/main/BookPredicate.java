@@ -0,0 +1,233 @@
+package main;
+
+import java.util.Objects;
+
+import data_structures.ArrayList;
+import interfaces.FilterFunction;
+import interfaces.List;
+
+/**
+ * A filter for books that, unlike a lambda, can be looked into. It is
+ * built from terms like genreEquals() or checkedOut() joined with and(),
+ * or() and not(), and the catalog reads those terms to answer a search
+ * from its indexes instead of testing every book. Any lambda can still be
+ * part of a predicate through matching(), it is then tested on the books
+ * the indexes give back.
+ *
+ * A predicate is a FilterFunction, so it can be used anywhere a lambda
+ * can, and filter() always gives the same answer the catalog does.
+ * @author jorge
+ *
+ */
+public abstract class BookPredicate implements FilterFunction<Book> {
+	/**
+	 * Fields of a book that the catalog keeps an index for
+	 */
+	enum Field {
+		TITLE, AUTHOR, GENRE
+	}
+
+	BookPredicate() {
+	}
+
+	/**
+	 * Matches the books with the given title.
+	 * @param title The title to match, may be null
+	 * @return The predicate
+	 */
+	public static BookPredicate titleEquals(String title) {
+		return new FieldEquals(Field.TITLE, title);
+	}
+
+	/**
+	 * Matches the books written by the given author.
+	 * @param author The author to match, may be null
+	 * @return The predicate
+	 */
+	public static BookPredicate authorEquals(String author) {
+		return new FieldEquals(Field.AUTHOR, author);
+	}
+
+	/**
+	 * Matches the books of the given genre.
+	 * @param genre The genre to match, may be null
+	 * @return The predicate
+	 */
+	public static BookPredicate genreEquals(String genre) {
+		return new FieldEquals(Field.GENRE, genre);
+	}
+
+	/**
+	 * Matches the books that are currently checked out.
+	 * @return The predicate
+	 */
+	public static BookPredicate checkedOut() {
+		return CheckedOut.INSTANCE;
+	}
+
+	/**
+	 * Matches the books that pass any filter. The catalog can't look into
+	 * the filter, so it is only tested on the books the other terms of the
+	 * predicate leave.
+	 * @param func The filter to be tested
+	 * @return The predicate
+	 */
+	public static BookPredicate matching(FilterFunction<Book> func) {
+		if (func instanceof BookPredicate) {
+			return (BookPredicate) func;
+		}
+		return new Matching(Objects.requireNonNull(func));
+	}
+
+	/**
+	 * Matches the books that pass every one of the given predicates.
+	 * @param terms The predicates to be joined, at least one
+	 * @return The predicate
+	 */
+	public static BookPredicate and(BookPredicate... terms) {
+		return new And(listOf(terms));
+	}
+
+	/**
+	 * Matches the books that pass at least one of the given predicates.
+	 * @param terms The predicates to be joined, at least one
+	 * @return The predicate
+	 */
+	public static BookPredicate or(BookPredicate... terms) {
+		return new Or(listOf(terms));
+	}
+
+	/**
+	 * Matches the books that don't pass the given predicate.
+	 * @param term The predicate to be negated
+	 * @return The predicate
+	 */
+	public static BookPredicate not(BookPredicate term) {
+		return new Not(Objects.requireNonNull(term));
+	}
+
+	/**
+	 * Copies the terms of and() or or() into a List, rejecting missing ones.
+	 */
+	private static List<BookPredicate> listOf(BookPredicate[] terms) {
+		if (terms.length == 0) {
+			throw new IllegalArgumentException("At least one term is needed");
+		}
+		List<BookPredicate> toReturn = new ArrayList<BookPredicate>(terms.length);
+		for (BookPredicate e : terms) {
+			toReturn.add(Objects.requireNonNull(e));
+		}
+		return toReturn;
+	}
+
+	/**
+	 * A term that compares an indexed field with a value.
+	 */
+	static final class FieldEquals extends BookPredicate {
+		final Field field;
+		final String value;
+
+		FieldEquals(Field field, String value) {
+			this.field = field;
+			this.value = value;
+		}
+
+		@Override
+		public boolean filter(Book e) {
+			switch (field) {
+			case TITLE:
+				return Objects.equals(e.getTitle(), value);
+			case AUTHOR:
+				return Objects.equals(e.getAuthor(), value);
+			default:
+				return Objects.equals(e.getGenre(), value);
+			}
+		}
+	}
+
+	/**
+	 * A term that matches the checked out books.
+	 */
+	static final class CheckedOut extends BookPredicate {
+		static final CheckedOut INSTANCE = new CheckedOut();
+
+		@Override
+		public boolean filter(Book e) {
+			return e.isCheckedOut();
+		}
+	}
+
+	/**
+	 * A term made of a filter that can't be looked into.
+	 */
+	static final class Matching extends BookPredicate {
+		final FilterFunction<Book> func;
+
+		Matching(FilterFunction<Book> func) {
+			this.func = func;
+		}
+
+		@Override
+		public boolean filter(Book e) {
+			return func.filter(e);
+		}
+	}
+
+	/**
+	 * Every term has to match.
+	 */
+	static final class And extends BookPredicate {
+		final List<BookPredicate> terms;
+
+		And(List<BookPredicate> terms) {
+			this.terms = terms;
+		}
+
+		@Override
+		public boolean filter(Book e) {
+			for (BookPredicate term : terms) {
+				if (!term.filter(e)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * At least one term has to match.
+	 */
+	static final class Or extends BookPredicate {
+		final List<BookPredicate> terms;
+
+		Or(List<BookPredicate> terms) {
+			this.terms = terms;
+		}
+
+		@Override
+		public boolean filter(Book e) {
+			for (BookPredicate term : terms) {
+				if (term.filter(e)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * The term must not match.
+	 */
+	static final class Not extends BookPredicate {
+		final BookPredicate term;
+
+		Not(BookPredicate term) {
+			this.term = term;
+		}
+
+		@Override
+		public boolean filter(Book e) {
+			return !term.filter(e);
+		}
+	}
+}
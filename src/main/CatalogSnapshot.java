@@ -0,0 +1,301 @@
+package main;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import data_structures.ArrayList;
+import data_structures.IntArrayList;
+import data_structures.StringDictionary;
+import interfaces.IntList;
+import interfaces.List;
+
+/**
+ * Reads and writes a LibraryCatalog as a compact binary snapshot, so the
+ * catalog can be loaded without parsing text or dates.
+ *
+ * A snapshot is made of the following big-endian values:
+ * <pre>
+ * int      MAGIC
+ * int      VERSION
+ * int      amount of books
+ * long[]   checked out flags, a bit per book in the order below
+ * per book:
+ *   int    ID
+ *   int    last check out date as a count of days since 1970-01-01,
+ *          Integer.MIN_VALUE if it has none
+ *   string title, author and genre
+ * int      amount of users
+ * per user:
+ *   int    ID
+ *   string name
+ *   int    amount of checked out books, -1 if the user has no list
+ *   int[]  IDs of the checked out books, in list order
+ * </pre>
+ * where a string is an int with the length of its UTF-8 bytes followed by
+ * the bytes, or -1 for null.
+ *
+ * Running this class writes a snapshot of the catalog in the data files
+ * to the path given as its first argument, or to DEFAULT_FILE.
+ * @author jorge
+ *
+ */
+public final class CatalogSnapshot {
+	/**
+	 * Path snapshots are written to when no other is given
+	 */
+	public static final String DEFAULT_FILE = "data/catalog.snapshot";
+	/**
+	 * First int of every snapshot, "LCSN" in ASCII
+	 */
+	private static final int MAGIC = 0x4C43534E;
+	/**
+	 * Version of the format written by this class. It has to be increased
+	 * whenever the format changes, so that old snapshots are rejected
+	 * instead of being read wrong.
+	 */
+	private static final int VERSION = 1;
+
+	private CatalogSnapshot() {
+	}
+
+	/**
+	 * Writes a snapshot of the catalog in the data files.
+	 * @param args The path to write the snapshot to, optional
+	 * @throws IOException if the data files can't be read or the
+	 * snapshot can't be written
+	 */
+	public static void main(String[] args) throws IOException {
+		String fileName = args.length > 0 ? args[0] : DEFAULT_FILE;
+		new LibraryCatalog(LoadMode.MAPPED).writeSnapshot(fileName);
+	}
+
+	/**
+	 * Writes the books and users of a catalog to a snapshot. The caller
+	 * must keep the catalog from changing while it is written. The
+	 * snapshot is written to a temporary file next to it, forced to disk
+	 * and then moved over the old snapshot, so a snapshot that fails
+	 * halfway never replaces the previous one.
+	 * @param fileName The path of the snapshot
+	 * @param catalog The books of the catalog
+	 * @param users The users of the catalog
+	 * @throws IOException if the snapshot can't be written
+	 */
+	static void write(String fileName, List<Book> catalog, List<User> users) throws IOException {
+		Path target = Path.of(fileName).toAbsolutePath();
+		Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+		boolean moved = false;
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+					var out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16))) {
+				write(out, catalog, users);
+				out.flush();
+				channel.force(false);
+			}
+			Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			moved = true;
+		}
+		finally {
+			if (!moved) {
+				Files.deleteIfExists(temp);
+			}
+		}
+	}
+
+	/**
+	 * Writes the contents of a snapshot.
+	 * @param out Where to write the snapshot
+	 * @param catalog The books of the catalog
+	 * @param users The users of the catalog
+	 * @throws IOException if the snapshot can't be written
+	 */
+	private static void write(DataOutputStream out, List<Book> catalog, List<User> users) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+
+		out.writeInt(catalog.size());
+		long[] checkedOut = new long[(catalog.size() + 63) / 64];
+		int i = 0;
+		for (Book e : catalog) {
+			if (e.isCheckedOut()) {
+				checkedOut[i >> 6] |= 1L << i;
+			}
+			i++;
+		}
+		for (long word : checkedOut) {
+			out.writeLong(word);
+		}
+		for (Book e : catalog) {
+			out.writeInt(e.getId());
+			out.writeInt(e.getLastCheckOutDay());
+			writeString(out, e.getTitle());
+			writeString(out, e.getAuthor());
+			writeString(out, e.getGenre());
+		}
+
+		out.writeInt(users.size());
+		for (User e : users) {
+			out.writeInt(e.getId());
+			writeString(out, e.getName());
+			//the IDs are written as they are, so lists that haven't been
+			//built yet stay that way
+			IntList ids = e.getCheckedOutIds();
+			if (ids == null) {
+				out.writeInt(-1);
+				continue;
+			}
+			out.writeInt(ids.size());
+			for (int j = 0; j < ids.size(); j++) {
+				out.writeInt(ids.get(j));
+			}
+		}
+	}
+
+	/**
+	 * Reads the books of a snapshot.
+	 * @param snapshot The snapshot, positioned at its start
+	 * @param genres Gives the shared instance of each genre
+	 * @param authors Gives the shared instance of each author
+	 * @return A List with the books of the snapshot, in their original
+	 * order
+	 * @throws IOException if it is not a snapshot or is of a different
+	 * version
+	 */
+	static List<Book> readBooks(ByteBuffer snapshot, StringDictionary genres, StringDictionary authors) throws IOException {
+		try {
+			if (snapshot.getInt() != MAGIC) {
+				throw new IOException("Not a catalog snapshot");
+			}
+			int version = snapshot.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported snapshot version " + version);
+			}
+
+			int count = checkCount(snapshot.getInt());
+			long[] checkedOut = new long[(count + 63) / 64];
+			snapshot.asLongBuffer().get(checkedOut);
+			snapshot.position(snapshot.position() + checkedOut.length * Long.BYTES);
+
+			List<Book> books = new ArrayList<Book>(count);
+			byte[] scratch = new byte[64];
+			for (int i = 0; i < count; i++) {
+				int id = snapshot.getInt();
+				int lastCheckOutDay = snapshot.getInt();
+				String title = readString(snapshot, scratch);
+				String author = authors.intern(readString(snapshot, scratch));
+				String genre = genres.intern(readString(snapshot, scratch));
+				boolean isCheckedOut = (checkedOut[i >> 6] & (1L << i)) != 0;
+				books.add(new Book(id, title, author, genre, lastCheckOutDay, isCheckedOut));
+			}
+			return books;
+		}
+		catch (BufferUnderflowException e) {
+			throw new IOException("Truncated catalog snapshot", e);
+		}
+	}
+
+	/**
+	 * Reads the users of a snapshot. Only the IDs of the books they have
+	 * checked out are read, the catalog looks the books up the first time
+	 * each user's list is needed.
+	 * @param snapshot The snapshot, positioned after its books
+	 * @return A List with the users of the snapshot, in their original
+	 * order
+	 * @throws IOException if the snapshot is malformed
+	 */
+	static List<User> readUsers(ByteBuffer snapshot) throws IOException {
+		try {
+			int count = checkCount(snapshot.getInt());
+			List<User> users = new ArrayList<User>(count);
+			byte[] scratch = new byte[64];
+			for (int i = 0; i < count; i++) {
+				int id = snapshot.getInt();
+				String name = readString(snapshot, scratch);
+				int borrowed = snapshot.getInt();
+				if (borrowed < 0) {
+					users.add(new User(id, name));
+					continue;
+				}
+				if (borrowed > snapshot.remaining() / Integer.BYTES) {
+					throw new IOException("Truncated catalog snapshot");
+				}
+				IntList checkedOutIds = new IntArrayList(borrowed);
+				for (int j = 0; j < borrowed; j++) {
+					checkedOutIds.add(snapshot.getInt());
+				}
+				users.add(User.withCheckedOutIds(id, name, checkedOutIds));
+			}
+			return users;
+		}
+		catch (BufferUnderflowException e) {
+			throw new IOException("Truncated catalog snapshot", e);
+		}
+	}
+
+	/**
+	 * Maps a snapshot into memory.
+	 * @param fileName The path of the snapshot
+	 * @return The bytes of the snapshot
+	 * @throws IOException if the snapshot can't be read
+	 */
+	static ByteBuffer map(String fileName) throws IOException {
+		try (FileChannel channel = new FileInputStream(fileName).getChannel()) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Snapshot too large to map: " + fileName);
+			}
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	/**
+	 * Writes a string as the length of its UTF-8 bytes followed by the
+	 * bytes.
+	 */
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Reads a string written by writeString().
+	 * @param scratch A buffer to copy the bytes through, it is only used
+	 * if it is large enough
+	 */
+	private static String readString(ByteBuffer in, byte[] scratch) throws IOException {
+		int length = in.getInt();
+		if (length < 0) {
+			if (length == -1) {
+				return null;
+			}
+			throw new IOException("Malformed string in catalog snapshot");
+		}
+		byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+		in.get(bytes, 0, length);
+		return new String(bytes, 0, length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Rejects an amount of records that can't be right.
+	 */
+	private static int checkCount(int count) throws IOException {
+		if (count < 0) {
+			throw new IOException("Malformed catalog snapshot");
+		}
+		return count;
+	}
+}
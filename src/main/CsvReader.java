@@ -0,0 +1,454 @@
+package main;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streaming reader for comma separated files. It reads the file into a
+ * byte buffer and scans every record only once, without creating any
+ * intermediate Strings. Only the values of the fields that are asked for
+ * are turned into objects, and numbers and booleans are read straight
+ * from the bytes.
+ *
+ * The bytes can come from a stream, from a file that is mapped into
+ * memory, or from a buffer that already holds them. When the file is
+ * mapped the reader scans the pages of the file directly, so nothing is
+ * copied into the Java heap except the values of the fields.
+ *
+ * Fields may be enclosed in double quotes, in which case they can contain
+ * commas and line breaks, and a double quote inside of them is written as
+ * two double quotes.
+ * @author jorge
+ *
+ */
+public class CsvReader implements Closeable {
+	/**
+	 * Size of the buffer the file is read into. It grows if a single
+	 * field doesn't fit in it.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+	/**
+	 * Size of the part of a mapped file that is mapped at a time. Files
+	 * larger than this are mapped in several windows.
+	 */
+	private static final int MAP_WINDOW_SIZE = 1 << 30;
+
+	/**
+	 * Where the bytes of the file come from when reading from a stream
+	 */
+	private InputStream in;
+	/**
+	 * The file being read when it is mapped into memory
+	 */
+	private FileChannel channel;
+	/**
+	 * Position in the mapped file of the first byte of the buffer
+	 */
+	private long windowStart;
+	/**
+	 * Holds the part of the file that is being scanned
+	 */
+	private ByteBuffer buf;
+	/**
+	 * Position of the next byte to scan
+	 */
+	private int pos;
+	/**
+	 * Amount of valid bytes in the buffer
+	 */
+	private int limit;
+	/**
+	 * Whether the end of the file has been reached
+	 */
+	private boolean eof;
+	/**
+	 * Position where the field being scanned begins. The bytes from here
+	 * on are kept when the buffer is refilled.
+	 */
+	private int mark;
+	/**
+	 * Bounds of the value of the last scanned field, without the quotes
+	 */
+	private int fieldStart;
+	private int fieldEnd;
+	/**
+	 * Whether the last scanned field has escaped double quotes in it
+	 */
+	private boolean fieldEscaped;
+	/**
+	 * Whether the last scanned field was the last one of its record
+	 */
+	private boolean endOfRecord;
+
+	/**
+	 * Creates a reader over the given stream of UTF-8 encoded bytes.
+	 * @param in The stream to read from
+	 */
+	public CsvReader(InputStream in) {
+		this.in = in;
+		this.buf = ByteBuffer.allocate(BUFFER_SIZE);
+		this.pos = 0;
+		this.limit = 0;
+		this.eof = false;
+		this.endOfRecord = true;
+	}
+	/**
+	 * Creates a reader that maps the given file into memory and scans its
+	 * bytes in place.
+	 * @param channel The file to read, from its beginning
+	 */
+	public CsvReader(FileChannel channel) {
+		this.channel = channel;
+		this.windowStart = 0;
+		this.buf = ByteBuffer.allocate(0);
+		this.pos = 0;
+		this.limit = 0;
+		this.eof = false;
+		this.endOfRecord = true;
+	}
+	/**
+	 * Creates a reader over the bytes between the position and the limit
+	 * of the given buffer. The bytes are scanned in place.
+	 * @param bytes The UTF-8 encoded records to read
+	 */
+	public CsvReader(ByteBuffer bytes) {
+		this.buf = bytes.slice();
+		this.pos = 0;
+		this.limit = buf.limit();
+		this.eof = true;
+		this.endOfRecord = true;
+	}
+
+	/**
+	 * Moves on to the next record, skipping the fields of the current one
+	 * that were not read. Empty lines are skipped.
+	 * @return true if there is another record to read
+	 * @throws IOException if the file can't be read or is malformed
+	 */
+	public boolean nextRecord() throws IOException {
+		//skip the rest of the current record
+		while (!endOfRecord) {
+			scanField();
+		}
+		while (true) {
+			if (pos == limit) {
+				mark = pos;
+				if (!refill()) {
+					return false;
+				}
+			}
+			if (buf.get(pos) != '\n' && buf.get(pos) != '\r') {
+				break;
+			}
+			pos++;
+		}
+		endOfRecord = false;
+		return true;
+	}
+
+	/**
+	 * Reads the next field of the current record as a String.
+	 * @return The value of the field
+	 * @throws IOException if the file can't be read or is malformed
+	 */
+	public String nextString() throws IOException {
+		scanField();
+		return fieldValue();
+	}
+
+	/**
+	 * Reads the next field of the current record as an int.
+	 * @return The value of the field
+	 * @throws IOException if the file can't be read or is malformed
+	 * @throws NumberFormatException if the field is not an integer
+	 */
+	public int nextInt() throws IOException {
+		scanField();
+		return parseInt(fieldStart, fieldEnd);
+	}
+
+	/**
+	 * Reads the next field of the current record as a boolean. Just like
+	 * Boolean.valueOf(), it is true only if the field is "true", ignoring
+	 * case.
+	 * @return The value of the field
+	 * @throws IOException if the file can't be read or is malformed
+	 */
+	public boolean nextBoolean() throws IOException {
+		scanField();
+		return fieldEnd - fieldStart == 4
+				&& (buf.get(fieldStart) | 0x20) == 't'
+				&& (buf.get(fieldStart + 1) | 0x20) == 'r'
+				&& (buf.get(fieldStart + 2) | 0x20) == 'u'
+				&& (buf.get(fieldStart + 3) | 0x20) == 'e';
+	}
+
+	/**
+	 * Reads the next field of the current record as a list of integers
+	 * separated by spaces, optionally enclosed in braces, such as {2 4 6}.
+	 * @return The integers in the field, empty if the field is empty
+	 * @throws IOException if the file can't be read or is malformed
+	 * @throws NumberFormatException if the field has something other than
+	 * integers in it
+	 */
+	public int[] nextIntList() throws IOException {
+		scanField();
+		int start = fieldStart;
+		int end = fieldEnd;
+		if (start < end && buf.get(start) == '{') {
+			start++;
+			if (buf.get(end - 1) != '}') {
+				throw new NumberFormatException("Unclosed list: " + fieldValue());
+			}
+			end--;
+		}
+		//first count the integers, then read them
+		int count = 0;
+		for (int i = start; i < end; i++) {
+			if (buf.get(i) != ' ' && (i == start || buf.get(i - 1) == ' ')) {
+				count++;
+			}
+		}
+		int[] values = new int[count];
+		int n = 0;
+		int i = start;
+		while (n < count) {
+			while (buf.get(i) == ' ') {
+				i++;
+			}
+			int j = i;
+			while (j < end && buf.get(j) != ' ') {
+				j++;
+			}
+			values[n++] = parseInt(i, j);
+			i = j;
+		}
+		return values;
+	}
+
+	/**
+	 * Skips the next field of the current record.
+	 * @throws IOException if the file can't be read or is malformed
+	 */
+	public void skipField() throws IOException {
+		scanField();
+	}
+
+	/**
+	 * Closes the underlying stream.
+	 * @throws IOException if the stream can't be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		if (in != null) {
+			in.close();
+		}
+		if (channel != null) {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Finds the bounds of the next field and moves past the comma or
+	 * line break that ends it.
+	 * @throws IOException if the file can't be read or is malformed
+	 */
+	private void scanField() throws IOException {
+		if (endOfRecord) {
+			throw new IOException("Record has fewer fields than expected");
+		}
+		mark = pos;
+		fieldEscaped = false;
+		if ((pos < limit || refill()) && buf.get(pos) == '"') {
+			pos++;
+			while (true) {
+				if (pos == limit && !refill()) {
+					throw new IOException("Unterminated quoted field");
+				}
+				if (buf.get(pos++) == '"') {
+					//a doubled quote is an escaped quote, a single one closes the field
+					if ((pos < limit || refill()) && buf.get(pos) == '"') {
+						fieldEscaped = true;
+						pos++;
+					}
+					else {
+						break;
+					}
+				}
+			}
+			fieldStart = mark + 1;
+			fieldEnd = pos - 1;
+		}
+		else {
+			while ((pos < limit || refill())
+					&& buf.get(pos) != ',' && buf.get(pos) != '\n' && buf.get(pos) != '\r') {
+				pos++;
+			}
+			fieldStart = mark;
+			fieldEnd = pos;
+		}
+
+		//consume the delimiter
+		if (pos == limit && !refill()) {
+			endOfRecord = true;
+		}
+		else if (buf.get(pos) == ',') {
+			pos++;
+		}
+		else if (buf.get(pos) == '\n') {
+			pos++;
+			endOfRecord = true;
+		}
+		else if (buf.get(pos) == '\r') {
+			pos++;
+			if ((pos < limit || refill()) && buf.get(pos) == '\n') {
+				pos++;
+			}
+			endOfRecord = true;
+		}
+		else {
+			throw new IOException("Unexpected character after quoted field");
+		}
+	}
+
+	/**
+	 * Makes more bytes available after the ones from mark onward. The bytes
+	 * before mark may be discarded, so every position is moved back by the
+	 * amount of discarded bytes.
+	 * @return false if there were no more bytes to read
+	 * @throws IOException if the file can't be read
+	 */
+	private boolean refill() throws IOException {
+		if (eof) {
+			return false;
+		}
+		if (channel != null) {
+			return remap();
+		}
+		byte[] bytes = buf.array();
+		if (mark == 0 && limit == bytes.length) {
+			bytes = Arrays.copyOf(bytes, bytes.length * 2);
+			buf = ByteBuffer.wrap(bytes);
+		}
+		else if (mark > 0) {
+			System.arraycopy(bytes, mark, bytes, 0, limit - mark);
+			discard(mark);
+		}
+		int read = in.read(bytes, limit, bytes.length - limit);
+		if (read < 0) {
+			eof = true;
+			return false;
+		}
+		limit += read;
+		return true;
+	}
+	/**
+	 * Maps the window of the file that starts at mark. The new window is
+	 * larger than the bytes that are kept, so it always has new bytes.
+	 * @return false if the whole file has been mapped already
+	 * @throws IOException if the file can't be mapped
+	 */
+	private boolean remap() throws IOException {
+		long fileSize = channel.size();
+		long start = windowStart + mark;
+		if (windowStart + limit >= fileSize) {
+			eof = true;
+			return false;
+		}
+		long size = Math.min(fileSize - start, Math.max(MAP_WINDOW_SIZE, 2L * (limit - mark)));
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("Field is too large to be mapped");
+		}
+		buf = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+		windowStart = start;
+		discard(mark);
+		limit = (int) size;
+		return true;
+	}
+	/**
+	 * Moves every position back after the first bytes of the buffer are
+	 * discarded.
+	 * @param amount How many bytes were discarded
+	 */
+	private void discard(int amount) {
+		pos -= amount;
+		limit -= amount;
+		fieldStart -= amount;
+		fieldEnd -= amount;
+		mark -= amount;
+	}
+
+	/**
+	 * Turns the value of the last scanned field into a String, removing
+	 * the escaping of double quotes if needed.
+	 * @return The value of the field
+	 */
+	private String fieldValue() {
+		if (!fieldEscaped) {
+			return text(fieldStart, fieldEnd);
+		}
+		byte[] unescaped = new byte[fieldEnd - fieldStart];
+		int length = 0;
+		for (int i = fieldStart; i < fieldEnd; i++) {
+			unescaped[length++] = buf.get(i);
+			if (buf.get(i) == '"') {
+				i++;
+			}
+		}
+		return new String(unescaped, 0, length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads the decimal integer written in the buffer between start and end.
+	 * @param start Position of the first digit, or of the minus sign
+	 * @param end Position after the last digit
+	 * @return The value of the integer
+	 * @throws NumberFormatException if the bytes are not a valid int
+	 */
+	private int parseInt(int start, int end) {
+		int i = start;
+		boolean negative = i < end && buf.get(i) == '-';
+		if (negative) {
+			i++;
+		}
+		if (i == end) {
+			throw new NumberFormatException("For input string: \"" + text(start, end) + "\"");
+		}
+		//accumulate as a negative number so that Integer.MIN_VALUE fits
+		int value = 0;
+		for (; i < end; i++) {
+			int digit = buf.get(i) - '0';
+			if (digit < 0 || digit > 9 || value < (Integer.MIN_VALUE + digit) / 10) {
+				throw new NumberFormatException("For input string: \"" + text(start, end) + "\"");
+			}
+			value = value * 10 - digit;
+		}
+		if (!negative) {
+			if (value == Integer.MIN_VALUE) {
+				throw new NumberFormatException("For input string: \"" + text(start, end) + "\"");
+			}
+			value = -value;
+		}
+		return value;
+	}
+
+	/**
+	 * Turns the bytes between start and end into a String.
+	 * @param start Position of the first byte
+	 * @param end Position after the last byte
+	 * @return The decoded String
+	 */
+	private String text(int start, int end) {
+		if (buf.hasArray()) {
+			return new String(buf.array(), buf.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+		}
+		byte[] bytes = new byte[end - start];
+		buf.get(start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -1,29 +1,64 @@
 package main;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Clock;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import data_structures.ArrayList;
+import data_structures.BinaryHeap;
 import data_structures.DoublyLinkedList;
+import data_structures.HashMap;
+import data_structures.IntHashMap;
 import data_structures.SinglyLinkedList;
+import data_structures.StringDictionary;
+import data_structures.IntArrayList;
 import interfaces.FilterFunction;
+import interfaces.IntList;
 import interfaces.List;
+import interfaces.Map;
 
 /**
  * This class represents the library. It manages the library's users and
  * book catalog. It contains the private fields catalog, that acts as the
  * library's book catalog; and users, that is a List of the library's
  * clients.
+ * 
+ * The methods of this class can be called from several threads at the
+ * same time. Changes to the structure of the catalog, such as adding or
+ * removing books or changing the fields the books are indexed by, are
+ * made while holding a write lock, so searches and reports never see the
+ * catalog halfway through a change. Checking out and returning books
+ * only needs a read lock plus the circulation lock and the monitor of
+ * the book involved, so they run in parallel as long as they are
+ * working on different books. The Lists returned by getBookCatalog()
+ * and getUsers() are not protected.
  * @author jorge
  *
  */
 public class LibraryCatalog {
+	/**
+	 * The date the library takes as "today" unless it is given a different
+	 * clock. Specifications say to take September 15, 2023 as today's date.
+	 */
+	public static final LocalDate DEFAULT_BUSINESS_DATE = LocalDate.of(2023, 9, 15);
+	/**
+	 * DEFAULT_BUSINESS_DATE as a count of days since 1970-01-01
+	 */
+	public static final int DEFAULT_BUSINESS_DAY = (int) DEFAULT_BUSINESS_DATE.toEpochDay();
+	
 	/**
 	 * A list of books that the library owns. It is implemented using an
 	 * ArrayList to facilitate direct access to particular books in the
@@ -39,6 +74,181 @@ public class LibraryCatalog {
 	 * it's size does not change.
 	 */
 	private List<User> users;
+	/**
+	 * Index of the books in the catalog by their ID. It is kept up to date
+	 * by addBook() and removeBook() so that the methods that receive a book
+	 * ID don't have to scan the whole catalog to find it.
+	 */
+	private IntHashMap<Book> bookIndex;
+	/**
+	 * Secondary indexes that group the books of the catalog by title,
+	 * author and genre. Each key maps to the books that have that value,
+	 * in the order they were added to the catalog. They are kept up to
+	 * date when books are added, removed or have those fields changed.
+	 */
+	private Map<String, List<Book>> titleIndex;
+	private Map<String, List<Book>> authorIndex;
+	private Map<String, List<Book>> genreIndex;
+	/**
+	 * ID that will be assigned to the next book added to the catalog. It is
+	 * one more than the largest ID ever used, so that removing a book never
+	 * leads to two books sharing the same ID.
+	 */
+	private int nextId;
+	/**
+	 * The users that have each book in their list of checked out books,
+	 * by book ID. When a book is checked out, returned or changes its
+	 * check out date, only these users need their fees calculated again.
+	 */
+	private IntHashMap<List<User>> holders;
+	/**
+	 * The fields of the books in the catalog stored by column, for scans
+	 * over the whole catalog. It is kept up to date along with the other
+	 * indexes, and its slots follow catalog order, so the report can list
+	 * the checked out books without scanning the catalog.
+	 */
+	private BookColumns columns;
+	/**
+	 * Every genre and author the catalog has seen. Books read from the
+	 * data files or added to the catalog share the instances kept here
+	 * instead of each having its own copy.
+	 */
+	private final StringDictionary genres = new StringDictionary();
+	private final StringDictionary authors = new StringDictionary();
+	/**
+	 * The clock that tells the library what day it is. Check outs are dated
+	 * and fees are calculated with the day it gives.
+	 */
+	private volatile Clock clock;
+	/**
+	 * The current business day. It is only worked out again once the clock
+	 * leaves the bounds of the day, null if it has to be worked out again.
+	 */
+	private volatile BusinessDay businessDay;
+	/**
+	 * Guards the structure of the catalog and its indexes. It is held for
+	 * writing while books are added, removed or reindexed, and for reading
+	 * by everything else.
+	 */
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	/**
+	 * Number of locks that check outs and returns are spread over, a
+	 * power of two
+	 */
+	private static final int CIRCULATION_STRIPES = 64;
+	/**
+	 * Orders check outs and returns. Each book is guarded by the lock at
+	 * stripeOf() its ID, which is held while the book is checked out or
+	 * returned through the catalog, along with the book's monitor. A group
+	 * of books takes the locks of all of them, in ascending order, so two
+	 * groups can never wait on each other.
+	 */
+	private final ReentrantLock[] circulationLocks = new ReentrantLock[CIRCULATION_STRIPES];
+	{
+		for (int i = 0; i < CIRCULATION_STRIPES; i++) {
+			circulationLocks[i] = new ReentrantLock();
+		}
+	}
+	/**
+	 * The log that adding, removing, checking out and returning books are
+	 * written to, null if the changes are not being logged.
+	 */
+	private volatile WriteAheadLog log;
+	
+	/**
+	 * A business day as a count of days since 1970-01-01, along with the
+	 * bounds of that day in the clock's milliseconds. It never changes, so
+	 * it can be shared between threads.
+	 */
+	private static final class BusinessDay {
+		private final int day;
+		private final long startMillis;
+		private final long endMillis;
+		
+		private BusinessDay(int day, long startMillis, long endMillis) {
+			this.day = day;
+			this.startMillis = startMillis;
+			this.endMillis = endMillis;
+		}
+	}
+	
+	/**
+	 * Receives the books a search finds, one at a time, and decides
+	 * whether the search goes on.
+	 */
+	@FunctionalInterface
+	private interface BookVisitor {
+		/**
+		 * @param book A book that passed the search's filter
+		 * @return true to keep searching, false to stop
+		 */
+		boolean visit(Book book);
+	}
+	
+	/**
+	 * Keeps the k largest of the elements offered to it, in a heap whose
+	 * smallest element is the first one to go when a larger one comes. Of
+	 * elements that are equal in the order, the ones offered first are
+	 * kept and come first.
+	 */
+	private static final class TopK<T> {
+		/**
+		 * An element along with the position it was offered in
+		 */
+		private static final class Ranked<T> {
+			private final T value;
+			private final int position;
+			
+			private Ranked(T value, int position) {
+				this.value = value;
+				this.position = position;
+			}
+		}
+		
+		private final int k;
+		private final Comparator<? super T> order;
+		private final BinaryHeap<Ranked<T>> heap;
+		private int offered;
+		
+		private TopK(int k, Comparator<? super T> order) {
+			if (k < 0) {
+				throw new IllegalArgumentException("Negative k: " + k);
+			}
+			this.k = k;
+			this.order = order;
+			//the smallest, or the latest of the equal ones, is on top
+			this.heap = new BinaryHeap<Ranked<T>>(Math.min(k, 1024), (a, b) -> {
+				int c = order.compare(a.value, b.value);
+				return c != 0 ? c : Integer.compare(b.position, a.position);
+			});
+		}
+		
+		private void offer(T e) {
+			int position = offered++;
+			if (heap.size() < k) {
+				heap.add(new Ranked<T>(e, position));
+			}
+			else if (k > 0 && order.compare(e, heap.min().value) > 0) {
+				heap.replaceMin(new Ranked<T>(e, position));
+			}
+		}
+		
+		/**
+		 * Returns the elements kept, largest first.
+		 */
+		private List<T> toList() {
+			@SuppressWarnings("unchecked")
+			T[] sorted = (T[]) new Object[heap.size()];
+			for (int i = sorted.length - 1; i >= 0; i--) {
+				sorted[i] = heap.removeMin().value;
+			}
+			List<T> toReturn = new ArrayList<T>(sorted.length);
+			for (T e : sorted) {
+				toReturn.add(e);
+			}
+			return toReturn;
+		}
+	}
 	
 	/**
 	 * Default constructor for the LibraryCatalog Class.
@@ -50,67 +260,631 @@ public class LibraryCatalog {
 	 * @throws IOException
 	 */
 	public LibraryCatalog() throws IOException {
-		this.catalog = getBooksFromFiles();
-		this.users = getUsersFromFiles();
+		this(LoadMode.STREAM);
+	}
+	/**
+	 * Constructor for the LibraryCatalog Class that lets the caller choose
+	 * how the data files are read. Mapping the files into memory avoids
+	 * copying large catalogs through a read buffer and lets warm restarts
+	 * be served straight from the operating system's page cache. Loading
+	 * them in parallel also spreads the parsing across every core.
+	 * @param mode How the data files should be read
+	 * @throws IOException
+	 */
+	public LibraryCatalog(LoadMode mode) throws IOException {
+		setClock(Clock.fixed(DEFAULT_BUSINESS_DATE.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC));
+		this.catalog = getBooksFromFiles(mode);
+		indexCatalog();
+		this.users = getUsersFromFiles(mode);
+		indexUsers();
+	}
+	/**
+	 * Constructor for the LibraryCatalog Class that reads the books and
+	 * users from a snapshot written by writeSnapshot().
+	 * @param snapshot The bytes of the snapshot
+	 * @throws IOException if the snapshot is malformed
+	 */
+	private LibraryCatalog(ByteBuffer snapshot) throws IOException {
+		setClock(Clock.fixed(DEFAULT_BUSINESS_DATE.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC));
+		this.catalog = CatalogSnapshot.readBooks(snapshot, genres, authors);
+		indexCatalog();
+		this.users = CatalogSnapshot.readUsers(snapshot);
+		indexUsers();
+	}
+	/**
+	 * Creates a LibraryCatalog from a snapshot written by writeSnapshot()
+	 * instead of the data files. A snapshot stores IDs and dates as
+	 * binary numbers, so nothing has to be parsed as text and large
+	 * catalogs start much faster than from the data files.
+	 * @param fileName The path of the snapshot
+	 * @return A catalog with the books and users of the snapshot
+	 * @throws IOException if the snapshot can't be read, is malformed or
+	 * was written by a different version
+	 */
+	public static LibraryCatalog fromSnapshot(String fileName) throws IOException {
+		return new LibraryCatalog(CatalogSnapshot.map(fileName));
+	}
+	/**
+	 * Writes the books and users of the catalog to a snapshot that
+	 * fromSnapshot() can load.
+	 * @param fileName The path of the snapshot
+	 * @throws IOException if the snapshot can't be written
+	 */
+	public void writeSnapshot(String fileName) throws IOException {
+		//the write lock keeps user lists from being replaced while writing
+		lock.writeLock().lock();
+		try {
+			CatalogSnapshot.write(fileName, catalog, users);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+	/**
+	 * Builds the ID and secondary indexes of the books in the catalog.
+	 */
+	private void indexCatalog() {
+		this.bookIndex = new IntHashMap<Book>(catalog.size());
+		this.titleIndex = new HashMap<String, List<Book>>(catalog.size());
+		this.authorIndex = new HashMap<String, List<Book>>();
+		this.genreIndex = new HashMap<String, List<Book>>();
+		this.columns = new BookColumns(catalog.size());
+		this.nextId = 1;
+		for (Book e : catalog) {
+			indexBook(e);
+		}
+	}
+	/**
+	 * Records which users have each book and makes this catalog the owner
+	 * of every user. The users' lists of checked out books are not built
+	 * here, only their IDs are read.
+	 */
+	private void indexUsers() {
+		this.holders = new IntHashMap<List<User>>();
+		for (User e : users) {
+			addHolder(e, e.getCheckedOutIds());
+			e.setOwner(this);
+		}
+	}
+	/**
+	 * Looks up the books with the given IDs through the ID index. Called
+	 * by a user of this catalog the first time their list of checked out
+	 * books is needed. IDs of books that are not in the catalog are
+	 * skipped.
+	 * @param ids IDs of the books, in list order
+	 * @return A List with the books, in the same order
+	 */
+	List<Book> resolveBooks(IntList ids) {
+		lock.readLock().lock();
+		try {
+			List<Book> books = new SinglyLinkedList<Book>();
+			for (int i = ids.size() - 1; i >= 0; i--) {
+				Book b = bookIndex.get(ids.get(i));
+				if (b != null) {
+					books.add(0, b);
+				}
+			}
+			return books;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	/**
+	 * Counts the books with the given IDs that are in the catalog, which
+	 * is the size resolveBooks() would give the list.
+	 * @param ids IDs of the books
+	 * @return The amount of IDs found in the ID index
+	 */
+	int countBooks(IntList ids) {
+		lock.readLock().lock();
+		try {
+			int count = 0;
+			for (var it = ids.iterator(); it.hasNext();) {
+				if (bookIndex.get(it.nextInt()) != null) {
+					count++;
+				}
+			}
+			return count;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	/**
+	 * Adds up the fees of the books with the given IDs that are in the
+	 * catalog, in the same order calculateFees() of a user adds up the
+	 * list resolveBooks() would give, so the total is the same.
+	 * @param ids IDs of the books, in list order
+	 * @param today The day to calculate the fees for, as a count of days
+	 * since 1970-01-01
+	 * @return The fees owed for the books
+	 */
+	float sumFees(IntList ids, int today) {
+		lock.readLock().lock();
+		try {
+			float total = 0;
+			for (var it = ids.iterator(); it.hasNext();) {
+				Book b = bookIndex.get(it.nextInt());
+				if (b != null) {
+					total += b.calculateFees(today);
+				}
+			}
+			return total;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	/**
+	 * Builds the lists of checked out books of the users that have the
+	 * book with the given ID. It has to be called while the book can still
+	 * be found by that ID, before it is removed or given a different ID.
+	 * @param id The ID of the book
+	 */
+	private void resolveHolders(int id) {
+		List<User> bookHolders = holders.get(id);
+		if (bookHolders != null) {
+			for (User e : bookHolders) {
+				e.resolveCheckedOutList();
+			}
+		}
+	}
+	
+	/**
+	 * Assigns the clock that tells the library what day it is. By default
+	 * the clock is fixed at DEFAULT_BUSINESS_DATE.
+	 * @param clock The clock to use, for example Clock.systemDefaultZone()
+	 * to use the real date
+	 */
+	public void setClock(Clock clock) {
+		this.clock = clock;
+		//make the next call to getBusinessDay() work out the day again
+		this.businessDay = null;
+	}
+	/**
+	 * Gets the date the library takes as "today".
+	 * @return The current business date
+	 */
+	public LocalDate getBusinessDate() {
+		return LocalDate.ofEpochDay(getBusinessDay());
+	}
+	/**
+	 * Gets the date the library takes as "today" as a count of days since
+	 * 1970-01-01. The date is only worked out again when the clock moves
+	 * into a different day, so calling this doesn't create any objects.
+	 * @return The current business day
+	 */
+	public int getBusinessDay() {
+		Clock current = clock;
+		BusinessDay today = businessDay;
+		long now = current.millis();
+		if (today == null || now < today.startMillis || now >= today.endMillis) {
+			LocalDate date = LocalDate.now(current);
+			today = new BusinessDay((int) date.toEpochDay(),
+					date.atStartOfDay(current.getZone()).toInstant().toEpochMilli(),
+					date.plusDays(1).atStartOfDay(current.getZone()).toInstant().toEpochMilli());
+			businessDay = today;
+		}
+		return today.day;
+	}
+	/**
+	 * Replays the write-ahead log in the given file on top of the catalog
+	 * read from the data files and starts writing every book added,
+	 * removed, checked out or returned to it. Each of those methods only
+	 * returns once its change is on disk, but changes made by several
+	 * threads at the same time are forced to disk together.
+	 * 
+	 * It should be called right after the catalog is created, since the
+	 * changes made before the log is opened are not written to it. The
+	 * log keeps growing until the data files are rewritten and the log
+	 * file deleted.
+	 * @param fileName The path of the log file, it is created if it
+	 * doesn't exist
+	 * @throws IOException if the log can't be read or written
+	 * @throws IllegalStateException if a log is already open
+	 */
+	public void openLog(String fileName) throws IOException {
+		lock.writeLock().lock();
+		try {
+			if (log != null) {
+				throw new IllegalStateException("A log is already open");
+			}
+			log = WriteAheadLog.open(fileName, new WriteAheadLog.Replayer() {
+				@Override
+				public void addBook(int id, String title, String author, String genre, int lastCheckOutDay) {
+					if (bookIndex.get(id) == null) {
+						Book toAdd = new Book(id, title, authors.intern(author), genres.intern(genre), lastCheckOutDay, false);
+						catalog.add(toAdd);
+						indexBook(toAdd);
+					}
+				}
+				@Override
+				public void removeBook(int id) {
+					Book toRemove = bookIndex.get(id);
+					if (toRemove != null) {
+						//O(n), like removeBook()
+						unindexBook(toRemove);
+						catalog.remove(toRemove);
+					}
+				}
+				@Override
+				public void checkOutBook(int id, int day) {
+					Book toCheckOut = bookIndex.get(id);
+					if (toCheckOut != null && circulate(toCheckOut, true, day) < 0) {
+						circulationChanged(toCheckOut);
+					}
+				}
+				@Override
+				public void returnBook(int id) {
+					Book toReturn = bookIndex.get(id);
+					if (toReturn != null && circulate(toReturn, false, 0) < 0) {
+						circulationChanged(toReturn);
+					}
+				}
+			});
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+	/**
+	 * Writes any pending changes to the write-ahead log and stops logging.
+	 * Does nothing if no log is open.
+	 * @throws IOException if the log can't be written
+	 */
+	public void closeLog() throws IOException {
+		WriteAheadLog toClose;
+		lock.writeLock().lock();
+		try {
+			toClose = log;
+			log = null;
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+		if (toClose != null) {
+			toClose.close();
+		}
+	}
+	/**
+	 * Waits until the log records up to the given position are on disk.
+	 * @param position A position returned by the log, 0 if nothing was
+	 * logged
+	 * @param current The log the records were written to, may be null
+	 */
+	private static void commit(WriteAheadLog current, long position) {
+		if (current != null && position > 0) {
+			current.commit(position);
+		}
+	}
+	/**
+	 * Adds a book to the ID and secondary indexes and makes sure that the
+	 * next assigned ID is larger than the ID of the book.
+	 * @param book The book to be indexed
+	 */
+	private void indexBook(Book book) {
+		bookIndex.put(book.getId(), book);
+		if (book.getId() >= nextId) {
+			nextId = book.getId() + 1;
+		}
+		//the book needs its slot before it can be placed in the groups
+		columns.add(book);
+		addToIndex(titleIndex, book.getTitle(), book);
+		addToIndex(authorIndex, book.getAuthor(), book);
+		addToIndex(genreIndex, book.getGenre(), book);
+		book.setOwner(this);
+	}
+	/**
+	 * Removes a book from the ID and secondary indexes.
+	 * @param book The book to be removed from the indexes
+	 */
+	private void unindexBook(Book book) {
+		resolveHolders(book.getId());
+		book.setOwner(null);
+		bookIndex.remove(book.getId());
+		removeFromIndex(titleIndex, book.getTitle(), book);
+		removeFromIndex(authorIndex, book.getAuthor(), book);
+		removeFromIndex(genreIndex, book.getGenre(), book);
+		columns.remove(book);
+	}
+	/**
+	 * Adds a book to the group of the given key in a secondary index.
+	 * Books with a null value are not indexed. Groups are kept in catalog
+	 * order, which is the order of the books' column slots, so a book
+	 * whose field changed goes back to its place instead of the end.
+	 * @param index The secondary index
+	 * @param key The value of the indexed field
+	 * @param book The book to be added, it must already have a slot
+	 */
+	private static void addToIndex(Map<String, List<Book>> index, String key, Book book) {
+		if (key == null) {
+			return;
+		}
+		List<Book> group = index.get(key);
+		if (group == null) {
+			group = new ArrayList<Book>(4);
+			index.put(key, group);
+		}
+		if (group.isEmpty() || group.last().getSlot() < book.getSlot()) {
+			//books added to the catalog go last
+			group.add(book);
+		}
+		else {
+			group.add(positionOf(group, book.getSlot()), book);
+		}
+	}
+	/**
+	 * Removes a book from the group of the given key in a secondary index,
+	 * dropping the key when no books are left in its group.
+	 * @param index The secondary index
+	 * @param key The value of the indexed field
+	 * @param book The book to be removed
+	 */
+	private static void removeFromIndex(Map<String, List<Book>> index, String key, Book book) {
+		if (key == null) {
+			return;
+		}
+		List<Book> group = index.get(key);
+		if (group == null) {
+			return;
+		}
+		int position = positionOf(group, book.getSlot());
+		if (position < group.size() && group.get(position) == book) {
+			group.remove(position);
+			if (group.isEmpty()) {
+				index.remove(key);
+			}
+		}
+	}
+	/**
+	 * Finds where a slot goes in a group of a secondary index by binary
+	 * search, since groups are sorted by slot.
+	 * @param group The group of the index
+	 * @param slot The column slot of a book
+	 * @return The position of the first book of the group whose slot is
+	 * not smaller than the given one
+	 */
+	private static int positionOf(List<Book> group, int slot) {
+		int low = 0;
+		int high = group.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (group.get(middle).getSlot() < slot) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+	/**
+	 * Called by a book of this catalog to change its ID. The ID is checked
+	 * before anything changes, since two books sharing an ID would leave
+	 * one of them out of the ID index.
+	 * @param book The book to change
+	 * @param newId The ID the book will have
+	 * @throws IllegalArgumentException if newId is null or belongs to
+	 * another book of the catalog
+	 */
+	void changeId(Book book, Integer newId) {
+		lock.writeLock().lock();
+		try {
+			Integer oldId = book.getId();
+			if (oldId == null || bookIndex.get(oldId) != book) {
+				//the book was removed before the lock was taken
+				book.assignId(newId);
+				return;
+			}
+			if (newId == null) {
+				throw new IllegalArgumentException("A book in a catalog must have an ID");
+			}
+			Book existing = bookIndex.get(newId);
+			if (existing != null && existing != book) {
+				throw new IllegalArgumentException("ID " + newId + " already belongs to another book");
+			}
+			resolveHolders(oldId);
+			book.assignId(newId);
+			bookIndex.remove(oldId);
+			bookIndex.put(book.getId(), book);
+			if (book.getId() >= nextId) {
+				nextId = book.getId() + 1;
+			}
+			List<User> bookHolders = holders.remove(oldId);
+			if (bookHolders != null) {
+				holders.put(book.getId(), bookHolders);
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+	/**
+	 * Checks whether a book is still in this catalog. The caller must hold
+	 * the write lock.
+	 */
+	private boolean isIndexed(Book book) {
+		Integer id = book.getId();
+		return id != null && bookIndex.get(id) == book;
+	}
+	/**
+	 * Called by a book of this catalog to change its title. The old title is
+	 * read, and the new one assigned and indexed, under the write lock, so
+	 * that books changing at the same time can't leave stale entries behind.
+	 * @param book The book to change
+	 * @param title The title the book will have
+	 */
+	void changeTitle(Book book, String title) {
+		lock.writeLock().lock();
+		try {
+			if (!isIndexed(book)) {
+				//the book was removed before the lock was taken
+				book.assignTitle(title);
+				return;
+			}
+			removeFromIndex(titleIndex, book.getTitle(), book);
+			book.assignTitle(title);
+			addToIndex(titleIndex, title, book);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+	/**
+	 * Called by a book of this catalog to change its author. The old author is
+	 * read, and the new one assigned and indexed, under the write lock, so
+	 * that books changing at the same time can't leave stale entries behind.
+	 * @param book The book to change
+	 * @param author The author the book will have
+	 */
+	void changeAuthor(Book book, String author) {
+		//share the instance with the other books of the same author
+		author = authors.intern(author);
+		lock.writeLock().lock();
+		try {
+			if (!isIndexed(book)) {
+				//the book was removed before the lock was taken
+				book.assignAuthor(author);
+				return;
+			}
+			removeFromIndex(authorIndex, book.getAuthor(), book);
+			book.assignAuthor(author);
+			addToIndex(authorIndex, author, book);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+	/**
+	 * Called by a book of this catalog to change its genre. The old genre is
+	 * read, and the new one assigned and indexed, under the write lock, so
+	 * that books changing at the same time can't leave stale entries behind.
+	 * @param book The book to change
+	 * @param genre The genre the book will have
+	 */
+	void changeGenre(Book book, String genre) {
+		//share the instance with the other books of the same genre
+		genre = genres.intern(genre);
+		lock.writeLock().lock();
+		try {
+			if (!isIndexed(book)) {
+				//the book was removed before the lock was taken
+				book.assignGenre(genre);
+				return;
+			}
+			removeFromIndex(genreIndex, book.getGenre(), book);
+			book.assignGenre(genre);
+			addToIndex(genreIndex, genre, book);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+	/**
+	 * Called by a book of this catalog after it is checked out, returned
+	 * or changes its check out date. Updates the set of checked out books
+	 * and marks the fees of the users that have the book as outdated.
+	 * @param book The book that changed
+	 */
+	void circulationChanged(Book book) {
+		lock.readLock().lock();
+		try {
+			//the book may have been removed before the lock was taken
+			if (bookIndex.get(book.getId()) != book) {
+				return;
+			}
+			//read the state under the book's monitor so a late update can't undo a newer one
+			synchronized (book) {
+				columns.circulationChanged(book);
+			}
+			List<User> bookHolders = holders.get(book.getId());
+			if (bookHolders != null) {
+				for (User e : bookHolders) {
+					e.feesChanged();
+				}
+			}
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	/**
+	 * Called by a user of this catalog to change their list of checked
+	 * out books, either by replacing it or through the List returned by
+	 * getCheckedOutList(). The change is made while holding the write lock,
+	 * so the user is moved from the books they had to the books they have
+	 * without another change getting in between.
+	 * @param <R> Type of the result of the change
+	 * @param user The user that changes
+	 * @param change Makes the change and returns its result
+	 * @return The result of the change
+	 */
+	<R> R changeCheckedOutList(User user, Supplier<R> change) {
+		lock.writeLock().lock();
+		try {
+			IntList oldIds = user.getCheckedOutIds();
+			R result = change.get();
+			if (oldIds != null) {
+				for (var it = oldIds.iterator(); it.hasNext();) {
+					int id = it.nextInt();
+					List<User> bookHolders = holders.get(id);
+					if (bookHolders != null && bookHolders.remove(user) && bookHolders.isEmpty()) {
+						holders.remove(id);
+					}
+				}
+			}
+			addHolder(user, user.getCheckedOutIds());
+			return result;
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+	/**
+	 * Records that the user has each of the given books.
+	 * @param user The user that has the books
+	 * @param ids IDs of the books the user has checked out, may be null
+	 */
+	private void addHolder(User user, IntList ids) {
+		if (ids == null) {
+			return;
+		}
+		for (var it = ids.iterator(); it.hasNext();) {
+			int id = it.nextInt();
+			List<User> bookHolders = holders.get(id);
+			if (bookHolders == null) {
+				bookHolders = new ArrayList<User>(2);
+				holders.put(id, bookHolders);
+			}
+			bookHolders.add(user);
+		}
 	}
 	
 	/**
 	 * Private method called by the constructor in order to fill the book
 	 * catalog with Book instances described by information in files.
+	 * @param mode How the file should be read
 	 * @return An ArrayList containing Book objects that serves as the library's 
 	 * catalog
 	 * @throws IOException If there is no catalog.csv in data/catalog.csv
 	 */
-	private List<Book> getBooksFromFiles() throws IOException {
+	private List<Book> getBooksFromFiles(LoadMode mode) throws IOException {
 		
 		List<Book> bookList = new ArrayList<Book>();
 		String fileName = "data/catalog.csv";
-		String line;
-		Integer id;
-		String title;
-		String author;
-		String genre;
-		String lastCheckOut;
-		Boolean checkedOut;
-		int index;
 		
 		try {
-			var reader = new BufferedReader(new FileReader(fileName));
+			if (mode == LoadMode.PARALLEL) {
+				return ParallelCsvLoader.load(fileName, this::readBook);
+			}
+			var reader = openFile(fileName, mode == LoadMode.MAPPED);
 		
 			//discard first line
-			reader.readLine();
+			reader.nextRecord();
 			
-			while ((line = reader.readLine()) != null) {
-				//Get book ID
-				index = line.indexOf(',');
-				id = Integer.valueOf(line.substring(0, index));
-				line = line.substring(index +1);
-				
-				//Get book title
-				index = line.indexOf(',');
-				title = line.substring(0, index);
-				line = line.substring(index +1);
-				
-				//Get book author
-				index = line.indexOf(',');
-				author = line.substring(0, index);
-				line = line.substring(index +1);
-				
-				//Get book genre
-				index = line.indexOf(',');
-				genre = line.substring(0, index);
-				line = line.substring(index +1);
-				
-				//Get last check out
-				index = line.indexOf(',');
-				lastCheckOut = line.substring(0, index);
-				line = line.substring(index +1);
-				
-				//check if book is checked out
-				checkedOut = Boolean.valueOf(line);
-				
-				//instantiate book and add it to the list
-				bookList.add(new Book(id, title, author, genre, lastCheckOut, checkedOut));
+			while (reader.nextRecord()) {
+				bookList.add(readBook(reader));
 			}
 			reader.close();
 		}
@@ -119,58 +893,89 @@ public class LibraryCatalog {
 		}
 		return bookList;
 	}
+	/**
+	 * Reads a line of catalog.csv into a Book. The author and genre are
+	 * replaced by the instances kept in the catalog's dictionaries, so
+	 * the Strings read from each line can be discarded right away.
+	 * @param reader A reader positioned at the start of the line
+	 * @return The book described by the line
+	 * @throws IOException if the line is malformed
+	 */
+	private Book readBook(CsvReader reader) throws IOException {
+		int id = reader.nextInt();
+		String title = reader.nextString();
+		String author = authors.intern(reader.nextString());
+		String genre = genres.intern(reader.nextString());
+		String lastCheckOut = reader.nextString();
+		boolean checkedOut = reader.nextBoolean();
+		
+		return new Book(id, title, author, genre, lastCheckOut, checkedOut);
+	}
 	/**
 	 * Private method called by the constructor in order to fill the user
 	 * list with User instances described by information in files.
+	 * @param mode How the file should be read
 	 * @return An ArrayList containing User objects that represent the library's
 	 * clients
 	 * @throws IOException if there is no user.csv in data/user.csv
 	 */
-	private List<User> getUsersFromFiles() throws IOException {
+	private List<User> getUsersFromFiles(LoadMode mode) throws IOException {
 		
-		List<User> userList = new ArrayList<User>();
 		String fileName = "data/user.csv";
-		String line;
-		Integer id;
-		String name;
-		List<Book> checkedOutList;
-		
-		int index;
-		String[] bookIDs;
+		if (mode == LoadMode.PARALLEL) {
+			return ParallelCsvLoader.load(fileName, this::readUser);
+		}
 		
-		var reader = new BufferedReader(new FileReader(fileName));
+		List<User> userList = new ArrayList<User>();
+		var reader = openFile(fileName, mode == LoadMode.MAPPED);
 		
 		//discard first line
-		reader.readLine();
+		reader.nextRecord();
 		
-		while ((line = reader.readLine()) != null) {
-			//Get user ID
-			index = line.indexOf(',');
-			id = Integer.valueOf(line.substring(0, index));
-			line = line.substring(index +1);
-			
-			//Get user's full name
-			index = line.indexOf(',');
-			name = line.substring(0, index);
-			line = line.substring(index);
-			
-			//Get user's checked out book's IDs
-			checkedOutList = new SinglyLinkedList<Book>();
-			if (line.length() > 1) {
-				line = line.substring(2, line.length() -1);
-				bookIDs = line.split(" ");
-				
-				for (String e : bookIDs) {
-					checkedOutList.add(0, this.catalog.get(Integer.valueOf(e) -1));
-				}
-				
-			}
-			userList.add(new User(id, name, checkedOutList));
+		while (reader.nextRecord()) {
+			userList.add(readUser(reader));
 		}
 		reader.close();
 		
 		return userList;
 	}
+	/**
+	 * Reads a line of user.csv into a User. Only the IDs of the books
+	 * they have checked out are kept, the books are looked up by ID the
+	 * first time the user's list is needed. It doesn't touch the catalog,
+	 * so it can be called from several threads at the same time.
+	 * @param reader A reader positioned at the start of the line
+	 * @return The user described by the line
+	 * @throws IOException if the line is malformed
+	 */
+	private User readUser(CsvReader reader) throws IOException {
+		int id = reader.nextInt();
+		String name = reader.nextString();
+		
+		//Get user's checked out book's IDs. The list has them in the
+		//opposite order of the file, as it has always been built
+		int[] bookIDs = reader.nextIntList();
+		IntList checkedOutIds = new IntArrayList(bookIDs.length);
+		for (int i = bookIDs.length - 1; i >= 0; i--) {
+			checkedOutIds.add(bookIDs[i]);
+		}
+		return User.withCheckedOutIds(id, name, checkedOutIds);
+	}
+	/**
+	 * Opens a data file for reading, either mapping it into memory or
+	 * reading it as a stream.
+	 * @param fileName The path of the file
+	 * @param mapFile Whether the file should be mapped into memory
+	 * @return A CsvReader over the file
+	 * @throws FileNotFoundException if the file doesn't exist
+	 */
+	private static CsvReader openFile(String fileName, boolean mapFile) throws FileNotFoundException {
+		var stream = new FileInputStream(fileName);
+		if (mapFile) {
+			return new CsvReader(stream.getChannel());
+		}
+		return new CsvReader(stream);
+	}
 	/**
 	 * Gets this library's book catalog.
 	 * @return A List of books the library owns
@@ -192,64 +997,268 @@ public class LibraryCatalog {
 	 * @param genre The book's genre
 	 */
 	public void addBook(String title, String author, String genre) {
-		catalog.add(new Book(this.catalog.size() +1, title, author, genre, "2023-09-15", false));
-		return;
+		WriteAheadLog current;
+		long position = 0;
+		lock.writeLock().lock();
+		try {
+			Book toAdd = new Book(nextId, title, authors.intern(author), genres.intern(genre), getBusinessDay(), false);
+			//log first, so a book that can't be logged is not added
+			current = log;
+			if (current != null) {
+				position = current.logAddBook(toAdd);
+			}
+			catalog.add(toAdd);
+			indexBook(toAdd);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+		//wait for the disk without blocking the rest of the catalog
+		commit(current, position);
 	}
 	/**
 	 * Searches for the book in the catalog that has
 	 * the given ID and removes it.
+	 * 
+	 * Finding the book takes constant time through the ID
+	 * index, but removing it does not: the catalog and the
+	 * index groups are array lists, so the books after it
+	 * are shifted one position and removal stays O(n) in
+	 * the size of the catalog.
 	 * @param id ID of the book to be removed from the
 	 * catalog
 	 */
 	public void removeBook(int id) {
-		for (int i = 0; i < catalog.size(); i++) {
-			if (catalog.get(i).getId().equals(id)) {
-				catalog.remove(i);
-				return;
+		WriteAheadLog current;
+		long position = 0;
+		lock.writeLock().lock();
+		try {
+			Book toRemove = bookIndex.get(id);
+			current = log;
+			if (toRemove != null) {
+				if (current != null) {
+					position = current.logRemoveBook(id);
+				}
+				unindexBook(toRemove);
+				catalog.remove(toRemove);
 			}
 		}
+		finally {
+			lock.writeLock().unlock();
+		}
+		commit(current, position);
 	}	
 	
 	/**
-	 * Checks out a book from the library if it is not
-	 * already checked out. If it checks out a book, it
-	 * changes the book's check-out status to true and 
-	 * check out date to today, September 15, 2023.
-	 * @param id ID of the book to be checked out
-	 * @return true if it manages to check out the book
+	 * Checks out a book from the library if it is not
+	 * already checked out. If it checks out a book, it
+	 * changes the book's check-out status to true and 
+	 * check out date to the current business date.
+	 * @param id ID of the book to be checked out
+	 * @return true if it manages to check out the book
+	 */
+	public boolean checkOutBook(int id) {
+		WriteAheadLog current;
+		long position;
+		lock.readLock().lock();
+		try {
+			current = log;
+			Book toCheckOut = bookIndex.get(id);
+			if (toCheckOut == null || (position = circulate(toCheckOut, true, getBusinessDay())) == 0) {
+				return false;
+			}
+			circulationChanged(toCheckOut);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+		commit(current, position);
+		return true;
+	}
+	
+	/**
+	 * Returns a book form the library if it is not already
+	 * returned. If it manages to return a book, it changes 
+	 * the book's check-out status to false.
+	 * @param id ID of the book to be returned
+	 * @return true if it manages to return the book
+	 */
+	public boolean returnBook(int id) {
+		WriteAheadLog current;
+		long position;
+		lock.readLock().lock();
+		try {
+			current = log;
+			Book toReturn = bookIndex.get(id);
+			if (toReturn == null || (position = circulate(toReturn, false, 0)) == 0) {
+				return false;
+			}
+			circulationChanged(toReturn);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+		commit(current, position);
+		return true;
+	}
+	
+	/**
+	 * Checks out or returns a single book and writes the change to the log
+	 * while holding the book's locks, so the log has the changes to each
+	 * book in the order they were made. The change is logged before it is
+	 * made, so a change that can't be logged is not made.
+	 * @param book The book to be checked out or returned
+	 * @param checkOut true to check the book out, false to return it
+	 * @param today The check out day, as a count of days since 1970-01-01
+	 * @return 0 if the book didn't change, otherwise the log position to
+	 * commit, or -1 if no log is open
+	 */
+	private long circulate(Book book, boolean checkOut, int today) {
+		ReentrantLock stripe = circulationLocks[stripeOf(book.getId())];
+		stripe.lock();
+		try {
+			synchronized (book) {
+				if (book.isCheckedOut() == checkOut) {
+					return 0;
+				}
+				long position = logCirculation(book, checkOut, today);
+				apply(book, checkOut, today);
+				return position;
+			}
+		}
+		finally {
+			stripe.unlock();
+		}
+	}
+	/**
+	 * Finds the circulation lock that guards a book.
+	 * @param id The ID of the book
+	 * @return The position of the lock in circulationLocks
+	 */
+	private static int stripeOf(int id) {
+		return id & (CIRCULATION_STRIPES - 1);
+	}
+	/**
+	 * Checks out or returns a book that is known to change. The caller
+	 * must hold the book's monitor.
+	 * @param book The book to be checked out or returned
+	 * @param checkOut true to check the book out, false to return it
+	 * @param today The check out day, as a count of days since 1970-01-01
+	 */
+	private static void apply(Book book, boolean checkOut, int today) {
+		if (checkOut) {
+			book.applyCheckOut(today);
+		}
+		else {
+			book.applyCheckIn();
+		}
+	}
+	/**
+	 * Writes a check out or return to the log. The caller must hold the
+	 * book's monitor.
+	 * @param book The book that is checked out or returned
+	 * @param checkOut true if the book is checked out, false if returned
+	 * @param today The check out day, as a count of days since 1970-01-01
+	 * @return The log position to commit, or -1 if no log is open
+	 */
+	private long logCirculation(Book book, boolean checkOut, int today) {
+		WriteAheadLog current = log;
+		if (current == null) {
+			return -1;
+		}
+		return checkOut ? current.logCheckOut(book.getId(), today) : current.logReturn(book.getId());
+	}
+	
+	/**
+	 * Checks out every book in a transaction at once. The books are looked
+	 * up through the ID index and the whole group is checked out while
+	 * holding all of their circulation locks, so no other check out or
+	 * return made through the catalog can happen in the middle of the
+	 * transaction. Searches and reports don't take those locks, and may
+	 * see only part of it. Books that don't exist or are already checked
+	 * out are skipped, the rest are checked out regardless.
+	 * @param ids IDs of the books to be checked out
+	 * @return A BitSet where bit i is set if the book ids[i] was checked out
 	 */
-	public boolean checkOutBook(int id) {
-		for (int i = 0; i < catalog.size(); i++) {
-			if (catalog.get(i).getId().equals(id)) {
-				Book toCheckOut = catalog.get(i);
-				if (!toCheckOut.isCheckedOut()) {
-					toCheckOut.setCheckedOut(true);
-					toCheckOut.setLastCheckOut(LocalDate.parse("2023-09-15"));
-					return true;
-				}
-			}
-		}
-		return false;
+	public BitSet checkOutBooks(int[] ids) {
+		return circulateBooks(ids, true);
 	}
 	
 	/**
-	 * Returns a book form the library if it is not already
-	 * returned. If it manages to return a book, it changes 
-	 * the book's check-out status to false.
-	 * @param id ID of the book to be returned
-	 * @return true if it manages to return the book
+	 * Returns every book in a transaction at once. The books are looked up
+	 * through the ID index and the whole group is returned while holding
+	 * all of their circulation locks, so no other check out or return
+	 * made through the catalog can happen in the middle of the
+	 * transaction. Searches and reports don't take those locks, and may
+	 * see only part of it. Books that don't exist or are not checked out
+	 * are skipped, the rest are returned regardless.
+	 * @param ids IDs of the books to be returned
+	 * @return A BitSet where bit i is set if the book ids[i] was returned
 	 */
-	public boolean returnBook(int id) {
-		for (int i = 0; i < catalog.size(); i++) {
-			if (catalog.get(i).getId().equals(id)) {
-				Book toReturn = catalog.get(i);
-				if (toReturn.isCheckedOut()) {
-					toReturn.setCheckedOut(false);
-					return true;
+	public BitSet returnBooks(int[] ids) {
+		return circulateBooks(ids, false);
+	}
+	
+	/**
+	 * Checks out or returns a group of books as a single step.
+	 * @param ids IDs of the books
+	 * @param checkOut true to check the books out, false to return them
+	 * @return A BitSet where bit i is set if the book ids[i] changed
+	 */
+	private BitSet circulateBooks(int[] ids, boolean checkOut) {
+		WriteAheadLog current;
+		long position = 0;
+		BitSet changed = new BitSet(ids.length);
+		lock.readLock().lock();
+		try {
+			current = log;
+			Book[] books = new Book[ids.length];
+			BitSet stripes = new BitSet(CIRCULATION_STRIPES);
+			for (int i = 0; i < ids.length; i++) {
+				books[i] = bookIndex.get(ids[i]);
+				if (books[i] != null) {
+					stripes.set(stripeOf(ids[i]));
+				}
+			}
+			
+			//take the locks in ascending order, so that two transactions
+			//can never wait on each other
+			int today = getBusinessDay();
+			int held = -1;
+			try {
+				for (int i = stripes.nextSetBit(0); i >= 0; i = stripes.nextSetBit(i + 1)) {
+					circulationLocks[i].lock();
+					held = i;
+				}
+				for (int i = 0; i < books.length; i++) {
+					if (books[i] == null) {
+						continue;
+					}
+					synchronized (books[i]) {
+						if (books[i].isCheckedOut() != checkOut) {
+							position = logCirculation(books[i], checkOut, today);
+							apply(books[i], checkOut, today);
+							changed.set(i);
+						}
+					}
+				}
+			}
+			finally {
+				for (int i = held; i >= 0; i = stripes.previousSetBit(i - 1)) {
+					circulationLocks[i].unlock();
+				}
+				//notify once the books' locks are released, even if the log
+				//failed halfway, about the books that did change
+				for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+					circulationChanged(books[i]);
 				}
 			}
 		}
-		return false;
+		finally {
+			lock.readLock().unlock();
+		}
+		commit(current, position);
+		return changed;
 	}
 	
 	/**
@@ -259,12 +1268,14 @@ public class LibraryCatalog {
 	 * @return true if the book is available for check out
 	 */
 	public boolean getBookAvailability(int id) {
-		for (int i = 0; i < catalog.size(); i++) {
-			if (catalog.get(i).getId().equals(id)) {
-				return !catalog.get(i).isCheckedOut();
-			}
+		lock.readLock().lock();
+		try {
+			Book toCheck = bookIndex.get(id);
+			return toCheck != null && !toCheck.isCheckedOut();
+		}
+		finally {
+			lock.readLock().unlock();
 		}
-		return false;
 	}
 	
 	/**
@@ -275,8 +1286,18 @@ public class LibraryCatalog {
 	 * in the catalog
 	 */
 	public int bookCount(String title) {
-		List<Book> toCount = searchForBook(x -> x.getTitle().equals(title));
-		return toCount.size();
+		if (title == null) {
+			//books without a title aren't in the index
+			return countBooks(BookPredicate.titleEquals(null));
+		}
+		lock.readLock().lock();
+		try {
+			List<Book> toCount = titleIndex.get(title);
+			return toCount == null ? 0 : toCount.size();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
 	}
 	/**
 	 * Generates a .txt file with a report that includes
@@ -286,107 +1307,164 @@ public class LibraryCatalog {
 	 * money from books that have been checked out for too
 	 * long along with the money they owe, and the total
 	 * fees owed to the library.
+	 * 
+	 * The genre counts are read from the genre index, the
+	 * checked out books by walking the checked out slots of
+	 * the book columns, so they come out in catalog order,
+	 * and the fees from each user's calculated fees, which are
+	 * only calculated again when one of their books changes.
+	 * Every line is written straight to the file as it goes
+	 * instead of building the whole report in memory.
 	 * @throws IOException if the output directory is invalid
 	 */
 	public void generateReport() throws IOException {
+		lock.readLock().lock();
+		try {
 		
-		String output = "\t\t\t\tREPORT\n\n";
-		output += "\t\tSUMMARY OF BOOKS\n";
-		output += "GENRE\t\t\t\t\t\tAMOUNT\n";
-		/*
-		 * In this section you will print the amount of books per category.
-		 * 
-		 * Place in each parenthesis the specified count. 
-		 * 
-		 * Note this is NOT a fixed number, you have to calculate it because depending on the 
-		 * input data we use the numbers will differ.
-		 * 
-		 * How you do the count is up to you. You can make a method, use the searchForBooks()
-		 * function or just do the count right here.
-		 */
-		int totalBooks = searchForBook(x -> x.getGenre().equals("Adventure")).size() +
-				searchForBook(x -> x.getGenre().equals("Fiction")).size() +
-				searchForBook(x -> x.getGenre().equals("Classics")).size() +
-				searchForBook(x -> x.getGenre().equals("Mystery")).size() +
-				searchForBook(x -> x.getGenre().equals("Science Fiction")).size();
-		output += "Adventure\t\t\t\t\t" + (searchForBook(x -> x.getGenre().equals("Adventure")).size()) + "\n";
-		output += "Fiction\t\t\t\t\t\t" + (searchForBook(x -> x.getGenre().equals("Fiction")).size()) + "\n";
-		output += "Classics\t\t\t\t\t" + (searchForBook(x -> x.getGenre().equals("Classics")).size()) + "\n";
-		output += "Mystery\t\t\t\t\t\t" + (searchForBook(x -> x.getGenre().equals("Mystery")).size()) + "\n";
-		output += "Science Fiction\t\t\t\t\t" + (searchForBook(x -> x.getGenre().equals("Science Fiction")).size()) + "\n";
-		output += "====================================================\n";
-		output += "\t\t\tTOTAL AMOUNT OF BOOKS\t" + (totalBooks) + "\n\n";
-		
-		/*
-		 * This part prints the books that are currently checked out
-		 */
-		output += "\t\t\tBOOKS CURRENTLY CHECKED OUT\n\n";
-		/*
-		 * Here you will print each individual book that is checked out.
-		 * 
-		 * Remember that the book has a toString() method. 
-		 * Notice if it was implemented correctly it should print the books in the 
-		 * expected format.
-		 * 
-		 * PLACE CODE HERE
-		 */
-		List<Book> checkedOutBooks = searchForBook(x -> x.isCheckedOut());
-		for (Book e : checkedOutBooks) {
-			output += e.toString() + "\n";
-		}
-		
-		
-		output += "====================================================\n";
-		output += "\t\t\tTOTAL AMOUNT OF BOOKS\t" + (checkedOutBooks.size()) + "\n\n";
-		
-		
-		/*
-		 * Here we will print the users the owe money.
-		 */
-		output += "\n\n\t\tUSERS THAT OWE BOOK FEES\n\n";
-		/*
-		 * Here you will print all the users that owe money.
-		 * The amount will be calculating taking into account 
-		 * all the books that have late fees.
-		 * 
-		 * For example if user Jane Doe has 3 books and 2 of them have late fees.
-		 * Say book 1 has $10 in fees and book 2 has $78 in fees.
-		 * 
-		 * You would print: Jane Doe\t\t\t\t\t$88.00
-		 * 
-		 * Notice that we place 5 tabs between the name and fee and 
-		 * the fee should have 2 decimal places.
-		 * 
-		 * PLACE CODE HERE!
-		 */
-		List<User> owingUsers = searchForUsers(x -> x.getCheckedOutList().size() > 0);
-		float totalFees = 0;
-		for (User e : owingUsers) {
-			float fees = 0;
-			for (Book b : e.getCheckedOutList()){
-				fees += b.calculateFees();
-			}
-			totalFees += fees;
+			try (var writer = new BufferedWriter(new FileWriter("report/report.txt"))) {
+				writer.write("\t\t\t\tREPORT\n\n");
+				writer.write("\t\tSUMMARY OF BOOKS\n");
+				writer.write("GENRE\t\t\t\t\t\tAMOUNT\n");
 			
-			output += e.getName() + "\t\t\t\t\t$" + String.format("%.2f", fees) + "\n";
-		}
-
+				/*
+				 * Amount of books per genre
+				 */
+				int adventure = genreCount("Adventure");
+				int fiction = genreCount("Fiction");
+				int classics = genreCount("Classics");
+				int mystery = genreCount("Mystery");
+				int scienceFiction = genreCount("Science Fiction");
+				int totalBooks = adventure + fiction + classics + mystery + scienceFiction;
+				writer.write("Adventure\t\t\t\t\t" + adventure + "\n");
+				writer.write("Fiction\t\t\t\t\t\t" + fiction + "\n");
+				writer.write("Classics\t\t\t\t\t" + classics + "\n");
+				writer.write("Mystery\t\t\t\t\t\t" + mystery + "\n");
+				writer.write("Science Fiction\t\t\t\t\t" + scienceFiction + "\n");
+				writer.write("====================================================\n");
+				writer.write("\t\t\tTOTAL AMOUNT OF BOOKS\t" + totalBooks + "\n\n");
 			
-		output += "====================================================\n";
-		output += "\t\t\t\tTOTAL DUE\t$" + (String.format("%.2f", totalFees)) + "\n\n\n";
-		output += "\n\n";
-		//System.out.println(output);// You can use this for testing to see if the report is as expected.
-		
-		/*
-		 * Here we will write to the file.
-		 * 
-		 * The variable output has all the content we need to write to the report file.
-		 * 
-		 * PLACE CODE HERE!!
-		 */
-		var writer = new BufferedWriter(new FileWriter("report/report.txt"));
-		writer.write(output);
-		writer.close();
+				/*
+				 * Books that are currently checked out, in catalog order
+				 */
+				writer.write("\t\t\tBOOKS CURRENTLY CHECKED OUT\n\n");
+				int checkedOutBooks = 0;
+				for (int slot = columns.nextCheckedOut(0); slot >= 0; slot = columns.nextCheckedOut(slot + 1)) {
+					writer.write(columns.bookAt(slot).toString());
+					writer.write('\n');
+					checkedOutBooks++;
+				}
+				writer.write("====================================================\n");
+				writer.write("\t\t\tTOTAL AMOUNT OF BOOKS\t" + checkedOutBooks + "\n\n");
+			
+				/*
+				 * Users that have books checked out, along with the fees
+				 * they owe. Notice that we place 5 tabs between the name
+				 * and fee and the fee should have 2 decimal places.
+				 */
+				writer.write("\n\n\t\tUSERS THAT OWE BOOK FEES\n\n");
+				float totalFees = 0;
+				int today = getBusinessDay();
+				for (User e : users) {
+					if (e.countCheckedOut() > 0) {
+						float fees = e.calculateFees(today);
+						totalFees += fees;
+					
+						writer.write(e.getName() + "\t\t\t\t\t$" + String.format("%.2f", fees) + "\n");
+					}
+				}
+				writer.write("====================================================\n");
+				writer.write("\t\t\t\tTOTAL DUE\t$" + String.format("%.2f", totalFees) + "\n\n\n");
+				writer.write("\n\n");
+			}
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	/**
+	 * Returns the amount of books in the catalog that are currently
+	 * checked out.
+	 * @return The amount of checked out books
+	 */
+	public int countCheckedOut() {
+		lock.readLock().lock();
+		try {
+			return columns.countCheckedOut();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	/**
+	 * Adds up the fees owed for every book in the catalog as of the
+	 * business date, whether or not a user has the book in their list.
+	 * It scans the columns of the catalog instead of asking each book.
+	 * @return The fees, in dollars, owed for every checked out book
+	 */
+	public float calculateOverdueFees() {
+		lock.readLock().lock();
+		try {
+			return columns.overdueFees(getBusinessDay());
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	/**
+	 * Counts the books of each genre by going through the whole catalog
+	 * in parallel on every core. Books without a genre aren't counted.
+	 * @return A Map from each genre to its amount of books
+	 */
+	public Map<String, Integer> countBooksByGenre() {
+		lock.readLock().lock();
+		try {
+			var counts = catalog.parallelStream()
+					.filter(e -> e.getGenre() != null)
+					.collect(Collectors.groupingByConcurrent(Book::getGenre, Collectors.counting()));
+			Map<String, Integer> toReturn = new HashMap<String, Integer>();
+			counts.forEach((genre, count) -> toReturn.put(genre, count.intValue()));
+			return toReturn;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	/**
+	 * Adds up the fees owed for the books of each genre as of the business
+	 * date, going through the whole catalog in parallel on every core. The
+	 * fees are added up as doubles and only rounded to a float at the end.
+	 * Books without a genre aren't counted.
+	 * @return A Map from each genre with fees owed to the total of its fees
+	 */
+	public Map<String, Float> calculateFeesByGenre() {
+		lock.readLock().lock();
+		try {
+			int today = getBusinessDay();
+			var fees = catalog.parallelStream()
+					.filter(e -> e.getGenre() != null && e.isCheckedOut())
+					.collect(Collectors.groupingByConcurrent(Book::getGenre,
+							Collectors.summingDouble(e -> e.calculateFees(today))));
+			Map<String, Float> toReturn = new HashMap<String, Float>();
+			fees.forEach((genre, total) -> {
+				if (total > 0) {
+					toReturn.put(genre, total.floatValue());
+				}
+			});
+			return toReturn;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	/**
+	 * Returns the amount of books of the given genre in the catalog,
+	 * as kept by the genre index.
+	 * @param genre The genre of the books to be counted
+	 * @return The amount of books of the given genre
+	 */
+	private int genreCount(String genre) {
+		List<Book> group = genreIndex.get(genre);
+		return group == null ? 0 : group.size();
 	}
 	
 	/*
@@ -398,22 +1476,388 @@ public class LibraryCatalog {
 	/**
 	 * Functional method to filter the catalog's books to match
 	 * a parameter lambda function
+	 * 
+	 * If the function is a BookPredicate whose terms can be answered by
+	 * the indexes, only the books the indexes give back are tested, see
+	 * planSearch(). Any other function is tested on every book. Either way
+	 * the books are returned in catalog order.
 	 * @param func Lambda function to evaluate the books in the library's
 	 * catalog
 	 * @return A List that contains the books that comply with the given
 	 * lambda function
 	 */
 	public List<Book> searchForBook(FilterFunction<Book> func) {
-		List<Book> toReturn = new SinglyLinkedList<Book>();
-		for (Book e : catalog) {
-			if (func.filter(e)) {
+		lock.readLock().lock();
+		try {
+			List<Book> toReturn = new SinglyLinkedList<Book>();
+			visitBooks(func, e -> {
 				//Here I am adding at the end so that the generated report matches
 				//the expected report
 				toReturn.add(e);
+				return true;
+			});
+			return toReturn;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	/**
+	 * Works like searchForBook(), but stops once it has found the given
+	 * amount of books.
+	 * @param func Lambda function to evaluate the books in the library's
+	 * catalog
+	 * @param limit The most books to be returned
+	 * @return A List with up to limit books that comply with the given
+	 * lambda function, the first ones searchForBook() would return
+	 * @throws IllegalArgumentException if limit is negative
+	 */
+	public List<Book> searchForBook(FilterFunction<Book> func, int limit) {
+		if (limit < 0) {
+			throw new IllegalArgumentException("Negative limit: " + limit);
+		}
+		lock.readLock().lock();
+		try {
+			List<Book> toReturn = new SinglyLinkedList<Book>();
+			if (limit > 0) {
+				visitBooks(func, e -> {
+					toReturn.add(e);
+					return toReturn.size() < limit;
+				});
+			}
+			return toReturn;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	/**
+	 * Counts the books in the catalog that comply with a lambda function
+	 * without building a List of them.
+	 * @param func Lambda function to evaluate the books in the library's
+	 * catalog
+	 * @return The amount of books searchForBook() would return
+	 */
+	public int countBooks(FilterFunction<Book> func) {
+		lock.readLock().lock();
+		try {
+			int[] count = new int[1];
+			visitBooks(func, e -> {
+				count[0]++;
+				return true;
+			});
+			return count[0];
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	/**
+	 * Returns the first book searchForBook() would return, stopping as
+	 * soon as it is found.
+	 * @param func Lambda function to evaluate the books in the library's
+	 * catalog
+	 * @return The first book that complies with the given lambda
+	 * function, null if there is none
+	 */
+	public Book firstBook(FilterFunction<Book> func) {
+		lock.readLock().lock();
+		try {
+			Book[] found = new Book[1];
+			visitBooks(func, e -> {
+				found[0] = e;
+				return false;
+			});
+			return found[0];
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	/**
+	 * Tells whether any book in the catalog complies with a lambda
+	 * function, stopping at the first one found.
+	 * @param func Lambda function to evaluate the books in the library's
+	 * catalog
+	 * @return true if at least one book complies with the function
+	 */
+	public boolean anyBook(FilterFunction<Book> func) {
+		return firstBook(func) != null;
+	}
+	/**
+	 * Hands the books that comply with a lambda function to a visitor, in
+	 * the order searchForBook() returns them, until the visitor stops the
+	 * search. A BookPredicate is answered from the indexes when possible.
+	 * The caller must hold the read lock.
+	 * @param func Lambda function to evaluate the books in the library's
+	 * catalog
+	 * @param visitor Receives the books that comply with the function
+	 */
+	private void visitBooks(FilterFunction<Book> func, BookVisitor visitor) {
+		if (func instanceof BookPredicate && planSearch((BookPredicate) func, visitor)) {
+			return;
+		}
+		for (Book e : catalog) {
+			if (func.filter(e) && !visitor.visit(e)) {
+				return;
+			}
+		}
+	}
+	/**
+	 * Answers a predicate from the indexes when one of its terms can be.
+	 * The term that gives back the fewest books is picked, an and() is
+	 * answered by its best term and an or() by all of its terms, and the
+	 * whole predicate is then tested on each book that comes back, so the
+	 * rest of the terms are applied as a filter. The caller must hold the
+	 * read lock.
+	 * @param predicate The predicate to search for
+	 * @param visitor Receives the matching books
+	 * @return false if no index can answer the predicate, in which case
+	 * the visitor got nothing and every book has to be tested
+	 */
+	private boolean planSearch(BookPredicate predicate, BookVisitor visitor) {
+		if (estimate(predicate) < 0) {
+			return false;
+		}
+		BookPredicate driver = predicate;
+		while (driver instanceof BookPredicate.And) {
+			driver = bestTerm((BookPredicate.And) driver);
+		}
+		if (driver instanceof BookPredicate.FieldEquals) {
+			//a single group of a secondary index, kept in catalog order
+			List<Book> group = groupOf((BookPredicate.FieldEquals) driver);
+			if (group != null) {
+				for (Book e : group) {
+					if (predicate.filter(e) && !visitor.visit(e)) {
+						break;
+					}
+				}
+			}
+			return true;
+		}
+		//the checked out bitmap or several groups, a book may come back
+		//more than once so they are gathered by their column slot, which
+		//also puts them in catalog order
+		BitSet slots = new BitSet(columns.slots());
+		markSlots(driver, slots);
+		for (int i = slots.nextSetBit(0); i >= 0; i = slots.nextSetBit(i + 1)) {
+			Book e = columns.bookAt(i);
+			if (predicate.filter(e) && !visitor.visit(e)) {
+				break;
+			}
+		}
+		return true;
+	}
+	/**
+	 * Returns about how many books the indexes give back for a predicate.
+	 * @param predicate The predicate to be answered
+	 * @return The amount of books, or -1 if no index can answer it
+	 */
+	private int estimate(BookPredicate predicate) {
+		if (predicate instanceof BookPredicate.FieldEquals) {
+			BookPredicate.FieldEquals term = (BookPredicate.FieldEquals) predicate;
+			if (term.value == null) {
+				//books without a value aren't indexed
+				return -1;
+			}
+			List<Book> group = groupOf(term);
+			return group == null ? 0 : group.size();
+		}
+		if (predicate instanceof BookPredicate.CheckedOut) {
+			return columns.countCheckedOut();
+		}
+		if (predicate instanceof BookPredicate.And) {
+			BookPredicate best = bestTerm((BookPredicate.And) predicate);
+			return best == null ? -1 : estimate(best);
+		}
+		if (predicate instanceof BookPredicate.Or) {
+			long total = 0;
+			for (BookPredicate term : ((BookPredicate.Or) predicate).terms) {
+				int amount = estimate(term);
+				if (amount < 0) {
+					return -1;
+				}
+				total += amount;
+			}
+			return (int) Math.min(total, Integer.MAX_VALUE);
+		}
+		//not() and lambdas need every book to be tested
+		return -1;
+	}
+	/**
+	 * Picks the term of an and() that the indexes give the fewest books
+	 * back for.
+	 * @return The term, or null if no index can answer any of them
+	 */
+	private BookPredicate bestTerm(BookPredicate.And predicate) {
+		BookPredicate best = null;
+		int bestAmount = -1;
+		for (BookPredicate term : predicate.terms) {
+			int amount = estimate(term);
+			if (amount >= 0 && (best == null || amount < bestAmount)) {
+				best = term;
+				bestAmount = amount;
+			}
+		}
+		return best;
+	}
+	/**
+	 * Sets the column slot of every book the indexes give back for a
+	 * predicate that estimate() can answer.
+	 * @param predicate The predicate to be answered
+	 * @param slots The slots of the books found so far
+	 */
+	private void markSlots(BookPredicate predicate, BitSet slots) {
+		if (predicate instanceof BookPredicate.FieldEquals) {
+			List<Book> group = groupOf((BookPredicate.FieldEquals) predicate);
+			if (group != null) {
+				for (Book e : group) {
+					slots.set(e.getSlot());
+				}
+			}
+		}
+		else if (predicate instanceof BookPredicate.CheckedOut) {
+			for (int slot = columns.nextCheckedOut(0); slot >= 0; slot = columns.nextCheckedOut(slot + 1)) {
+				slots.set(slot);
+			}
+		}
+		else if (predicate instanceof BookPredicate.And) {
+			markSlots(bestTerm((BookPredicate.And) predicate), slots);
+		}
+		else {
+			for (BookPredicate term : ((BookPredicate.Or) predicate).terms) {
+				markSlots(term, slots);
+			}
+		}
+	}
+	/**
+	 * Returns the group of a secondary index that a term looks for.
+	 * @return The books with the value of the term, null if there are none
+	 */
+	private List<Book> groupOf(BookPredicate.FieldEquals term) {
+		switch (term.field) {
+		case TITLE:
+			return titleIndex.get(term.value);
+		case AUTHOR:
+			return authorIndex.get(term.value);
+		default:
+			return genreIndex.get(term.value);
+		}
+	}
+	/**
+	 * Works like searchForBook(), but splits the catalog into chunks and
+	 * filters them on every core. The books are still returned in catalog
+	 * order. Meant for filters that are expensive to evaluate, since small
+	 * or cheap searches run faster on a single thread.
+	 * @param func Lambda function to evaluate the books in the library's
+	 * catalog, it is called from several threads at the same time
+	 * @return A List that contains the books that comply with the given
+	 * lambda function
+	 */
+	public List<Book> parallelSearchForBook(FilterFunction<Book> func) {
+		return ParallelSearch.filter(snapshotOf(catalog), func);
+	}
+	/**
+	 * Finds the books in the catalog that have the given title using the
+	 * title index, so it only visits the matching books. Books without a
+	 * title aren't indexed, so a null title is searched for by testing
+	 * every book.
+	 * @param title The title to search for
+	 * @return A List that contains the books with the given title, in
+	 * catalog order
+	 */
+	public List<Book> searchByTitle(String title) {
+		lock.readLock().lock();
+		try {
+			return title == null ? scanFor(BookPredicate.titleEquals(null)) : copyOf(titleIndex.get(title));
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	/**
+	 * Finds the books in the catalog written by the given author using
+	 * the author index, so it only visits the matching books. A null
+	 * author is searched for by testing every book.
+	 * @param author The author to search for
+	 * @return A List that contains the books by the given author, in
+	 * catalog order
+	 */
+	public List<Book> searchByAuthor(String author) {
+		lock.readLock().lock();
+		try {
+			return author == null ? scanFor(BookPredicate.authorEquals(null)) : copyOf(authorIndex.get(author));
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	/**
+	 * Finds the books in the catalog that belong to the given genre using
+	 * the genre index, so it only visits the matching books. A null genre
+	 * is searched for by testing every book.
+	 * @param genre The genre to search for
+	 * @return A List that contains the books of the given genre, in
+	 * catalog order
+	 */
+	public List<Book> searchByGenre(String genre) {
+		lock.readLock().lock();
+		try {
+			return genre == null ? scanFor(BookPredicate.genreEquals(null)) : copyOf(genreIndex.get(genre));
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	/**
+	 * Finds the books that comply with a predicate the indexes can't
+	 * answer, by testing every book. The caller must hold the read lock.
+	 * @param predicate The predicate to be tested
+	 * @return A new List with the matching books, in catalog order
+	 */
+	private List<Book> scanFor(BookPredicate predicate) {
+		List<Book> toReturn = new ArrayList<Book>();
+		for (Book e : catalog) {
+			if (predicate.filter(e)) {
+				toReturn.add(e);
 			}
 		}
 		return toReturn;
 	}
+	/**
+	 * Copies a group of a secondary index so that callers can't modify
+	 * the index through the returned List.
+	 * @param group The group to copy, may be null
+	 * @return A new List with the books of the group
+	 */
+	private static List<Book> copyOf(List<Book> group) {
+		if (group == null) {
+			return new ArrayList<Book>(0);
+		}
+		ArrayList<Book> toReturn = new ArrayList<Book>(group.size());
+		toReturn.addAll(group);
+		return toReturn;
+	}
+	/**
+	 * Copies a List while holding the read lock, so it can be searched
+	 * without holding the lock. Parallel searches use the copy because
+	 * their tasks may need the read lock themselves, for example when a
+	 * filter looks at a user's checked out books, and a writer waiting for
+	 * a lock held by the searching thread would keep them from getting it.
+	 * @param list The List to copy, either the catalog or the users
+	 * @return A new ArrayList with the elements of the List
+	 */
+	private <T> List<T> snapshotOf(List<T> list) {
+		lock.readLock().lock();
+		try {
+			ArrayList<T> toReturn = new ArrayList<T>(list.size());
+			toReturn.addAll(list);
+			return toReturn;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
 	/**
 	 * Functional method to filter the library's users to match
 	 * a parameter lambda function
@@ -423,15 +1867,128 @@ public class LibraryCatalog {
 	 * lambda function
 	 */
 	public List<User> searchForUsers(FilterFunction<User> func) {
-		List<User> toReturn = new SinglyLinkedList<User>();
-		for (User e : users) {
-			if (func.filter(e)) {
-				//Here I am adding at the end so that the generated report matches
-				//the expected report
-				toReturn.add(e);
+		lock.readLock().lock();
+		try {
+			List<User> toReturn = new SinglyLinkedList<User>();
+			for (User e : users) {
+				if (func.filter(e)) {
+					//Here I am adding at the end so that the generated report matches
+					//the expected report
+					toReturn.add(e);
+				}
 			}
+			return toReturn;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	/**
+	 * Works like searchForUsers(), but splits the user list into chunks
+	 * and filters them on every core. The users are still returned in the
+	 * order of the user list. Meant for filters that are expensive to
+	 * evaluate, like ones that calculate fees.
+	 * @param func Lambda function to evaluate the clients in the library's
+	 * user list, it is called from several threads at the same time
+	 * @return A List that contains the users that comply with the given
+	 * lambda function
+	 */
+	public List<User> parallelSearchForUsers(FilterFunction<User> func) {
+		return ParallelSearch.filter(snapshotOf(users), func);
+	}
+	/**
+	 * Finds the k books of the catalog that come last in the given order,
+	 * without sorting the whole catalog. It takes O(n log k) time and
+	 * keeps only k books at a time.
+	 * @param k The most books to be returned
+	 * @param order The order of the books, larger is better
+	 * @return A List with the k largest books, largest first. Equal books
+	 * come in catalog order
+	 * @throws IllegalArgumentException if k is negative
+	 */
+	public List<Book> topBooks(int k, Comparator<? super Book> order) {
+		lock.readLock().lock();
+		try {
+			TopK<Book> top = new TopK<Book>(k, order);
+			for (Book e : catalog) {
+				top.offer(e);
+			}
+			return top.toList();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	/**
+	 * Finds the k users that come last in the given order, without
+	 * sorting the whole user list. It takes O(n log k) time and keeps only
+	 * k users at a time.
+	 * @param k The most users to be returned
+	 * @param order The order of the users, larger is better
+	 * @return A List with the k largest users, largest first. Equal users
+	 * come in the order of the user list
+	 * @throws IllegalArgumentException if k is negative
+	 */
+	public List<User> topUsers(int k, Comparator<? super User> order) {
+		lock.readLock().lock();
+		try {
+			TopK<User> top = new TopK<User>(k, order);
+			for (User e : users) {
+				top.offer(e);
+			}
+			return top.toList();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	/**
+	 * Finds the k overdue books that owe the most fees as of the business
+	 * date. Only the checked out books are visited.
+	 * @param k The most books to be returned
+	 * @return A List with up to k books that owe fees, the one that owes
+	 * the most first
+	 * @throws IllegalArgumentException if k is negative
+	 */
+	public List<Book> mostOverdueBooks(int k) {
+		int today = getBusinessDay();
+		lock.readLock().lock();
+		try {
+			TopK<Book> top = new TopK<Book>(k, Comparator.comparingDouble(e -> e.calculateFees(today)));
+			visitBooks(BookPredicate.checkedOut(), e -> {
+				if (e.calculateFees(today) > 0) {
+					top.offer(e);
+				}
+				return true;
+			});
+			return top.toList();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	/**
+	 * Finds the k users that owe the most fees as of the business date.
+	 * @param k The most users to be returned
+	 * @return A List with up to k users that owe fees, the one that owes
+	 * the most first
+	 * @throws IllegalArgumentException if k is negative
+	 */
+	public List<User> usersOwingMost(int k) {
+		int today = getBusinessDay();
+		lock.readLock().lock();
+		try {
+			TopK<User> top = new TopK<User>(k, Comparator.comparingDouble(e -> e.calculateFees(today)));
+			for (User e : users) {
+				if (e.calculateFees(today) > 0) {
+					top.offer(e);
+				}
+			}
+			return top.toList();
+		}
+		finally {
+			lock.readLock().unlock();
 		}
-		return toReturn;
 	}
 	
 }
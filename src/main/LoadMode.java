@@ -0,0 +1,24 @@
+package main;
+
+/**
+ * The ways in which a LibraryCatalog can read its data files.
+ * @author jorge
+ *
+ */
+public enum LoadMode {
+	/**
+	 * The files are read as streams through a buffer, on a single thread.
+	 */
+	STREAM,
+	/**
+	 * The files are mapped into memory and parsed in place, on a single
+	 * thread.
+	 */
+	MAPPED,
+	/**
+	 * The files are mapped into memory, split into ranges of whole lines
+	 * and the ranges are parsed at the same time on a ForkJoinPool. Quoted
+	 * fields may not have line breaks in them in this mode.
+	 */
+	PARALLEL
+}
@@ -0,0 +1,183 @@
+package main;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import data_structures.ArrayList;
+import interfaces.List;
+
+/**
+ * Loads the records of a comma separated file using every core of the
+ * machine. The file is split into ranges that begin and end at line
+ * breaks, each range is mapped into memory and parsed by its own task on
+ * the common ForkJoinPool, and the results are put together in the same
+ * order the records have in the file.
+ *
+ * Since the ranges are split at line breaks, quoted fields can't have
+ * line breaks in them.
+ * @author jorge
+ *
+ */
+final class ParallelCsvLoader {
+	/**
+	 * Largest amount of bytes in a single range, so that every range can
+	 * be mapped at once.
+	 */
+	private static final long MAX_RANGE_SIZE = 1 << 30;
+	/**
+	 * Smallest amount of bytes worth parsing in a separate task
+	 */
+	private static final long MIN_RANGE_SIZE = 1 << 16;
+
+	/**
+	 * Reads a single record of a file into an object.
+	 * @param <T> Type of the objects the records are read into
+	 */
+	@FunctionalInterface
+	interface RecordParser<T> {
+		/**
+		 * Reads the fields of the current record of the reader.
+		 * @param reader A reader positioned at the start of a record
+		 * @return The object described by the record
+		 * @throws IOException if the record is malformed
+		 */
+		T parse(CsvReader reader) throws IOException;
+	}
+
+	private ParallelCsvLoader() {
+	}
+
+	/**
+	 * Reads every record of a file, skipping its first line, in parallel.
+	 * @param <T> Type of the objects the records are read into
+	 * @param fileName The path of the file
+	 * @param parser Reads a record into an object, it is called from
+	 * several threads at the same time
+	 * @return A List with an object per record, in file order
+	 * @throws IOException if the file can't be read or is malformed
+	 */
+	static <T> List<T> load(String fileName, RecordParser<T> parser) throws IOException {
+		try (FileChannel channel = new FileInputStream(fileName).getChannel()) {
+			long[] bounds = splitIntoRanges(channel);
+			int ranges = bounds.length - 1;
+
+			List<Future<List<T>>> tasks = new ArrayList<Future<List<T>>>(ranges);
+			for (int i = 0; i < ranges; i++) {
+				ByteBuffer range = channel.map(FileChannel.MapMode.READ_ONLY, bounds[i], bounds[i + 1] - bounds[i]);
+				tasks.add(ForkJoinPool.commonPool().submit(() -> parseRange(range, parser)));
+			}
+
+			//wait for every range and put the results together in order
+			List<List<T>> results = new ArrayList<List<T>>(ranges);
+			int total = 0;
+			for (Future<List<T>> task : tasks) {
+				List<T> result = join(task);
+				results.add(result);
+				total += result.size();
+			}
+			ArrayList<T> records = new ArrayList<T>(total);
+			for (List<T> result : results) {
+				records.addAll(result);
+			}
+			return records;
+		}
+	}
+
+	/**
+	 * Parses every record in a range of a file.
+	 * @param range The bytes of the range, made up of whole lines
+	 * @param parser Reads a record into an object
+	 * @return A List with an object per record, in file order
+	 * @throws IOException if a record is malformed
+	 */
+	private static <T> List<T> parseRange(ByteBuffer range, RecordParser<T> parser) throws IOException {
+		List<T> records = new ArrayList<T>();
+		CsvReader reader = new CsvReader(range);
+		while (reader.nextRecord()) {
+			records.add(parser.parse(reader));
+		}
+		return records;
+	}
+
+	/**
+	 * Splits the file, after its first line, into ranges of whole lines
+	 * so that there are a few ranges per core.
+	 * @param channel The file to split
+	 * @return The positions where the ranges begin, followed by the size
+	 * of the file
+	 * @throws IOException if the file can't be read
+	 */
+	private static long[] splitIntoRanges(FileChannel channel) throws IOException {
+		long fileSize = channel.size();
+		long start = nextLineStart(channel, 0);
+		long bytes = fileSize - start;
+
+		int ranges = ForkJoinPool.commonPool().getParallelism() * 4;
+		ranges = (int) Math.max(ranges, (bytes + MAX_RANGE_SIZE - 1) / MAX_RANGE_SIZE);
+		ranges = (int) Math.max(1, Math.min(ranges, bytes / MIN_RANGE_SIZE));
+
+		long[] bounds = new long[ranges + 1];
+		bounds[0] = start;
+		for (int i = 1; i < ranges; i++) {
+			bounds[i] = Math.max(bounds[i - 1], nextLineStart(channel, start + bytes * i / ranges));
+		}
+		bounds[ranges] = fileSize;
+		return bounds;
+	}
+
+	/**
+	 * Finds where the line after the given position begins.
+	 * @param channel The file to search in
+	 * @param position Where to start searching
+	 * @return The position after the first line break found, or the size
+	 * of the file if there are no more line breaks
+	 * @throws IOException if the file can't be read
+	 */
+	private static long nextLineStart(FileChannel channel, long position) throws IOException {
+		ByteBuffer chunk = ByteBuffer.allocate(4096);
+		while (true) {
+			chunk.clear();
+			int read = channel.read(chunk, position);
+			if (read < 0) {
+				return channel.size();
+			}
+			for (int i = 0; i < read; i++) {
+				if (chunk.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+	}
+
+	/**
+	 * Waits for a task to finish and returns its result, rethrowing the
+	 * exception it failed with.
+	 * @param task The task to wait for
+	 * @return The result of the task
+	 * @throws IOException if the task failed to parse its range
+	 */
+	private static <T> T join(Future<T> task) throws IOException {
+		try {
+			return task.get();
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while loading", e);
+		}
+	}
+}
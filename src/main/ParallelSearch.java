@@ -0,0 +1,90 @@
+package main;
+
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import data_structures.ArrayList;
+import interfaces.FilterFunction;
+import interfaces.List;
+
+/**
+ * Filters a List using every core of the machine. The List is split into
+ * chunks through its Spliterator, each chunk is filtered by its own task
+ * on the common ForkJoinPool, and the matches of the chunks are put
+ * together in the same order they have in the List.
+ * @author jorge
+ *
+ */
+final class ParallelSearch {
+	/**
+	 * Smallest amount of elements worth filtering in a separate task
+	 */
+	private static final long MIN_CHUNK_SIZE = 1 << 10;
+
+	private ParallelSearch() {
+	}
+
+	/**
+	 * Finds the elements of a List that pass a filter, in parallel. The
+	 * List must not be changed while it is filtered.
+	 * @param <T> Type of the elements of the List
+	 * @param list The List to be filtered
+	 * @param func The filter, it is called from several threads at the
+	 * same time
+	 * @return A List with the elements that pass the filter, in List order
+	 */
+	static <T> List<T> filter(List<T> list, FilterFunction<T> func) {
+		ArrayList<ArrayList<T>> chunks = ForkJoinPool.commonPool().invoke(new FilterTask<T>(list.spliterator(), func));
+		//the matches are copied once, into a List of their exact size
+		int count = 0;
+		for (ArrayList<T> e : chunks) {
+			count += e.size();
+		}
+		ArrayList<T> matches = new ArrayList<T>(count);
+		for (ArrayList<T> e : chunks) {
+			matches.addAll(e);
+		}
+		return matches;
+	}
+
+	/**
+	 * Filters a chunk of a List, splitting it in two while it's large
+	 * enough. The first part is filtered by a forked task and the second
+	 * by this one. Each chunk keeps its own matches, and the chunks are
+	 * given back in List order, so the matches are only copied once all
+	 * of them are known.
+	 */
+	@SuppressWarnings("serial")
+	private static final class FilterTask<T> extends RecursiveTask<ArrayList<ArrayList<T>>> {
+		private final Spliterator<T> chunk;
+		private final FilterFunction<T> func;
+
+		FilterTask(Spliterator<T> chunk, FilterFunction<T> func) {
+			this.chunk = chunk;
+			this.func = func;
+		}
+
+		@Override
+		protected ArrayList<ArrayList<T>> compute() {
+			Spliterator<T> prefix = chunk.estimateSize() > MIN_CHUNK_SIZE ? chunk.trySplit() : null;
+			if (prefix == null) {
+				ArrayList<T> matches = new ArrayList<T>();
+				chunk.forEachRemaining(e -> {
+					if (func.filter(e)) {
+						matches.add(e);
+					}
+				});
+				ArrayList<ArrayList<T>> chunks = new ArrayList<ArrayList<T>>(1);
+				chunks.add(matches);
+				return chunks;
+			}
+			FilterTask<T> first = new FilterTask<T>(prefix, func);
+			first.fork();
+			ArrayList<ArrayList<T>> second = new FilterTask<T>(chunk, func).compute();
+			ArrayList<ArrayList<T>> chunks = first.join();
+			chunks.addAll(second);
+			return chunks;
+		}
+	}
+}
@@ -1,5 +1,12 @@
 package main;
 
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.Spliterator;
+import java.util.function.Supplier;
+
+import data_structures.IntArrayList;
+import interfaces.IntList;
 import interfaces.List;
 
 /**
@@ -20,7 +27,41 @@ public class User {
 	/**
 	 * A List of books that the user has currently checked out
 	 */
-	private List<Book> checkedOutList;
+	private volatile List<Book> checkedOutList;
+	/**
+	 * IDs of the books the user has checked out, in list order, while
+	 * checkedOutList hasn't been built from them yet. They are kept as
+	 * primitive ints, so a user that is never looked at costs no objects
+	 * per book. It is null once the list is built, and it is guarded by
+	 * the user's monitor
+	 */
+	private IntList pendingIds;
+	/**
+	 * The catalog this user belongs to, if any. It makes the changes to
+	 * the list of checked out books, so it knows who has each book
+	 */
+	private volatile LibraryCatalog owner;
+	/**
+	 * The fees owed for the books in checkedOutList, as of the last time
+	 * they were calculated. It is guarded by the user's monitor, along
+	 * with feesDay and feesOutdated
+	 */
+	private float fees;
+	/**
+	 * The day fees was calculated for, as a count of days since 1970-01-01
+	 */
+	private int feesDay;
+	/**
+	 * Whether fees has to be calculated again because one of the books
+	 * in checkedOutList changed since it was last calculated
+	 */
+	private boolean feesOutdated = true;
+	/**
+	 * Counts the changes to the list of checked out books and to the
+	 * books in it, so fees added up without holding the monitor are only
+	 * kept if nothing changed in the meantime
+	 */
+	private int changes;
 	
 	/**
 	 * Main constructor for the User class. Instantiates a library
@@ -63,6 +104,22 @@ public class User {
 		this(null, null, checkedOutList);
 	}
 	
+	/**
+	 * Creates a user for the catalog while it loads its users. The list
+	 * of checked out books is only built, by looking up the given IDs in
+	 * the owner's catalog, the first time it is needed.
+	 * @param id Unique number that identifies the user
+	 * @param name Full name of the user
+	 * @param checkedOutIds IDs of the books the user has checked out, in
+	 * the order they should have in the list
+	 * @return A user whose list of checked out books isn't built yet
+	 */
+	static User withCheckedOutIds(Integer id, String name, IntList checkedOutIds) {
+		User user = new User(id, name);
+		user.pendingIds = checkedOutIds;
+		return user;
+	}
+	
 	/**
 	 * Gets the user's ID
 	 * @return The users ID, a unique number that identifies the 
@@ -94,12 +151,83 @@ public class User {
 	}
 	/**
 	 * Gets a List of books that the user has currently 
-	 * checked out
+	 * checked out. Changes made to the returned List are seen
+	 * by calculateFees() and by the user's catalog, changes
+	 * made to the List given to the constructor or to
+	 * setCheckedOutList() afterwards are not.
 	 * @return A List of books that the user has currently 
 	 * checked out
 	 */
 	public List<Book> getCheckedOutList() {
-		return checkedOutList;
+		List<Book> list = resolveCheckedOutList();
+		return list != null ? new CheckedOutList(list) : null;
+	}
+	/**
+	 * Gets checkedOutList, building it from pendingIds first if needed.
+	 * @return The list itself rather than a view of it, null if the user
+	 * has no list of checked out books
+	 */
+	List<Book> resolveCheckedOutList() {
+		List<Book> list = checkedOutList;
+		if (list != null) {
+			return list;
+		}
+		IntList ids;
+		synchronized (this) {
+			ids = pendingIds;
+		}
+		if (ids == null) {
+			return checkedOutList;
+		}
+		//look the books up without holding the monitor, since the catalog
+		//takes its own lock to do it
+		List<Book> resolved = owner.resolveBooks(ids);
+		synchronized (this) {
+			if (pendingIds == ids) {
+				checkedOutList = resolved;
+				pendingIds = null;
+			}
+			return checkedOutList;
+		}
+	}
+	/**
+	 * Counts the books the user has checked out, without building the
+	 * list of checked out books if it hasn't been built yet.
+	 * @return The size the list has or would have once built, 0 if the
+	 * user has no list of checked out books
+	 */
+	int countCheckedOut() {
+		IntList ids;
+		List<Book> list;
+		synchronized (this) {
+			ids = pendingIds;
+			list = checkedOutList;
+		}
+		if (ids != null) {
+			//count without holding the monitor, since the catalog takes its
+			//own lock to do it
+			return owner.countBooks(ids);
+		}
+		return list != null ? list.size() : 0;
+	}
+	/**
+	 * Gets the IDs of the books the user has checked out, without building
+	 * the list of checked out books if it hasn't been built yet.
+	 * @return The IDs of the books, in list order, null if the user has no
+	 * list of checked out books
+	 */
+	synchronized IntList getCheckedOutIds() {
+		if (pendingIds != null) {
+			return pendingIds;
+		}
+		if (checkedOutList == null) {
+			return null;
+		}
+		IntList ids = new IntArrayList(checkedOutList.size());
+		for (Book b : checkedOutList) {
+			ids.add(b.getId());
+		}
+		return ids;
 	}
 	/**
 	 * Assigns a List of books that the user has currently 
@@ -108,7 +236,278 @@ public class User {
 	 * currently checked out
 	 */
 	public void setCheckedOutList(List<Book> checkedOutList) {
-	this.checkedOutList = checkedOutList;
+		change(() -> {
+			this.checkedOutList = checkedOutList;
+			this.pendingIds = null;
+			return null;
+		});
+	}
+	/**
+	 * Makes a change to the list of checked out books through the
+	 * user's catalog, if any, so it can tell which books the user had and
+	 * has, and marks the fees as outdated.
+	 * @param change Makes the change and returns its result
+	 * @return The result of the change
+	 */
+	private <R> R change(Supplier<R> change) {
+		LibraryCatalog catalog = owner;
+		if (catalog == null) {
+			return changeLocked(change);
+		}
+		return catalog.changeCheckedOutList(this, () -> changeLocked(change));
+	}
+	/**
+	 * Makes a change under the user's monitor, so calculateFees() never
+	 * sees the list halfway through it.
+	 */
+	private synchronized <R> R changeLocked(Supplier<R> change) {
+		R result = change.get();
+		feesOutdated = true;
+		changes++;
+		return result;
+	}
+	/**
+	 * Calculates the fees the user owes for all the books they have
+	 * currently checked out, as of the business date of the catalog the
+	 * user belongs to, or September 15, 2023 if they don't belong to one.
+	 * @return A float value representing the fees, in dollars, the user owes
+	 */
+	public float calculateFees() {
+		return calculateFees(owner != null ? owner.getBusinessDay() : LibraryCatalog.DEFAULT_BUSINESS_DAY);
+	}
+	/**
+	 * Calculates the fees the user owes for all the books they have
+	 * currently checked out as of the given day. The result is kept until
+	 * the day changes or one of those books is checked out, returned or
+	 * changes its check out date, so calling it again is cheap. It
+	 * doesn't build the list of checked out books if it isn't built yet.
+	 * @param today The day to calculate the fees for, as a count of days
+	 * since 1970-01-01
+	 * @return A float value representing the fees, in dollars, the user owes
+	 */
+	public float calculateFees(int today) {
+		IntList ids;
+		int version;
+		synchronized (this) {
+			if (!feesOutdated && feesDay == today) {
+				return fees;
+			}
+			ids = pendingIds;
+			version = changes;
+			if (ids == null) {
+				float total = 0;
+				if (checkedOutList != null) {
+					for (Book b : checkedOutList) {
+						total += b.calculateFees(today);
+					}
+				}
+				keepFees(total, today);
+				return total;
+			}
+		}
+		//add up the fees straight from the catalog instead of building the
+		//list, without holding the monitor since the catalog takes its own
+		//lock to do it
+		float total = owner.sumFees(ids, today);
+		synchronized (this) {
+			if (changes == version) {
+				keepFees(total, today);
+			}
+			return total;
+		}
 	}
+	/**
+	 * Keeps the fees until the day or the books change. The caller must
+	 * hold the monitor.
+	 */
+	private void keepFees(float total, int today) {
+		fees = total;
+		feesDay = today;
+		feesOutdated = false;
+	}
+	/**
+	 * Makes the next call to calculateFees() calculate the fees again.
+	 * Called by the catalog when one of the user's books changes.
+	 */
+	synchronized void feesChanged() {
+		this.feesOutdated = true;
+		changes++;
+	}
+	/**
+	 * Assigns the catalog that has to make the changes to the list of
+	 * checked out books.
+	 * @param owner The catalog the user belongs to, null if none
+	 */
+	void setOwner(LibraryCatalog owner) {
+		this.owner = owner;
+	}
+	
 	
+	/**
+	 * The List handed out by getCheckedOutList(). It reads the list it
+	 * was made for, and makes every change to it through change(), so the
+	 * cached fees and the catalog's record of who has each book are kept
+	 * up to date.
+	 */
+	private final class CheckedOutList implements List<Book> {
+		private final List<Book> list;
+
+		CheckedOutList(List<Book> list) {
+			this.list = list;
+		}
+
+		@Override
+		public int size() {
+			return list.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return list.isEmpty();
+		}
+
+		@Override
+		public void add(Book obj) {
+			change(() -> {
+				list.add(obj);
+				return null;
+			});
+		}
+
+		@Override
+		public void add(int index, Book obj) {
+			change(() -> {
+				list.add(index, obj);
+				return null;
+			});
+		}
+
+		@Override
+		public Book get(int index) {
+			return list.get(index);
+		}
+
+		@Override
+		public Book set(int index, Book obj) {
+			return change(() -> list.set(index, obj));
+		}
+
+		@Override
+		public boolean remove(int index) {
+			return change(() -> list.remove(index));
+		}
+
+		@Override
+		public boolean remove(Book obj) {
+			return change(() -> list.remove(obj));
+		}
+
+		@Override
+		public boolean contains(Book obj) {
+			return list.contains(obj);
+		}
+
+		@Override
+		public void clear() {
+			change(() -> {
+				list.clear();
+				return null;
+			});
+		}
+
+		@Override
+		public int removeAll(Book obj) {
+			return change(() -> list.removeAll(obj));
+		}
+
+		@Override
+		public int firstIndex(Book obj) {
+			return list.firstIndex(obj);
+		}
+
+		@Override
+		public int lastIndex(Book obj) {
+			return list.lastIndex(obj);
+		}
+
+		@Override
+		public Book first() {
+			return list.first();
+		}
+
+		@Override
+		public Book last() {
+			return list.last();
+		}
+
+		@Override
+		public Iterator<Book> iterator() {
+			return listIterator(0);
+		}
+
+		@Override
+		public Spliterator<Book> spliterator() {
+			return list.spliterator();
+		}
+
+		@Override
+		public ListIterator<Book> listIterator(int index) {
+			ListIterator<Book> it = list.listIterator(index);
+			return new ListIterator<Book>() {
+				@Override
+				public boolean hasNext() {
+					return it.hasNext();
+				}
+
+				@Override
+				public Book next() {
+					return it.next();
+				}
+
+				@Override
+				public boolean hasPrevious() {
+					return it.hasPrevious();
+				}
+
+				@Override
+				public Book previous() {
+					return it.previous();
+				}
+
+				@Override
+				public int nextIndex() {
+					return it.nextIndex();
+				}
+
+				@Override
+				public int previousIndex() {
+					return it.previousIndex();
+				}
+
+				@Override
+				public void remove() {
+					change(() -> {
+						it.remove();
+						return null;
+					});
+				}
+
+				@Override
+				public void set(Book e) {
+					change(() -> {
+						it.set(e);
+						return null;
+					});
+				}
+
+				@Override
+				public void add(Book e) {
+					change(() -> {
+						it.add(e);
+						return null;
+					});
+				}
+			};
+		}
+	}
 }
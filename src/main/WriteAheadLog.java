@@ -0,0 +1,377 @@
+package main;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the changes made to a LibraryCatalog, so that they
+ * survive a restart without having to rewrite the data files.
+ *
+ * Every change is added to an in-memory buffer as a record with its
+ * length and a checksum. A thread that needs its change to be durable
+ * calls commit(). The first thread to do so writes every buffered record
+ * and forces them to disk, while the threads that arrive in the meantime
+ * wait and have their records written by the next force. This way many
+ * concurrent changes share a single fsync.
+ *
+ * If records can't be written, the log fails: the thread that tried to
+ * write them and every thread that adds or commits records afterwards
+ * gets an exception, since the records that were lost would leave a gap
+ * in the file.
+ *
+ * When the log is opened its records are replayed in order. A record
+ * that was only partly written when the program stopped is discarded,
+ * along with everything after it.
+ * @author jorge
+ *
+ */
+final class WriteAheadLog implements Closeable {
+	/**
+	 * Types of records in the log
+	 */
+	private static final byte ADD_BOOK = 1;
+	private static final byte REMOVE_BOOK = 2;
+	private static final byte CHECK_OUT = 3;
+	private static final byte RETURN = 4;
+
+	/**
+	 * Applies the records of the log while it is replayed.
+	 */
+	interface Replayer {
+		void addBook(int id, String title, String author, String genre, int lastCheckOutDay);
+		void removeBook(int id);
+		void checkOutBook(int id, int day);
+		void returnBook(int id);
+	}
+
+	/**
+	 * The log file
+	 */
+	private final FileChannel channel;
+	/**
+	 * Records that were added but not written to the file yet
+	 */
+	private final ByteArrayOutputStream pending;
+	/**
+	 * Amount of bytes of records added so far, counting from the point
+	 * where the file was opened
+	 */
+	private long appended;
+	/**
+	 * Amount of those bytes that are known to be on disk
+	 */
+	private long durable;
+	/**
+	 * Whether a thread is writing and forcing records at the moment
+	 */
+	private boolean flushing;
+	/**
+	 * Why records couldn't be written, null while the log works
+	 */
+	private IOException failure;
+
+	private WriteAheadLog(FileChannel channel) {
+		this.channel = channel;
+		this.pending = new ByteArrayOutputStream();
+	}
+
+	/**
+	 * Opens the log in the given file, creating it if it doesn't exist,
+	 * and replays every complete record in it.
+	 * @param fileName The path of the log file
+	 * @param replayer Applies the records in the log
+	 * @return The log, ready to add more records after the replayed ones
+	 * @throws IOException if the file can't be read or written
+	 */
+	static WriteAheadLog open(String fileName, Replayer replayer) throws IOException {
+		FileChannel channel = FileChannel.open(Path.of(fileName),
+				StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			long end = replay(channel, replayer);
+			//drop a partly written record so new records follow the last good one
+			channel.truncate(end);
+			channel.position(end);
+			return new WriteAheadLog(channel);
+		}
+		catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Adds a record for a book that is added to the catalog.
+	 * @param book The book that is added, its fields may be null
+	 * @return The position to pass to commit()
+	 * @throws UncheckedIOException if the log failed
+	 */
+	long logAddBook(Book book) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		try (var out = new DataOutputStream(bytes)) {
+			out.writeByte(ADD_BOOK);
+			out.writeInt(book.getId());
+			writeString(out, book.getTitle());
+			writeString(out, book.getAuthor());
+			writeString(out, book.getGenre());
+			out.writeInt(book.getLastCheckOutDay());
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return append(bytes.toByteArray());
+	}
+
+	/**
+	 * Adds a record for a book that is removed from the catalog.
+	 * @param id ID of the book
+	 * @return The position to pass to commit()
+	 * @throws UncheckedIOException if the log failed
+	 */
+	long logRemoveBook(int id) {
+		return append(ByteBuffer.allocate(5).put(REMOVE_BOOK).putInt(id).array());
+	}
+
+	/**
+	 * Adds a record for a book that is checked out.
+	 * @param id ID of the book
+	 * @param day The check out day, as a count of days since 1970-01-01
+	 * @return The position to pass to commit()
+	 * @throws UncheckedIOException if the log failed
+	 */
+	long logCheckOut(int id, int day) {
+		return append(ByteBuffer.allocate(9).put(CHECK_OUT).putInt(id).putInt(day).array());
+	}
+
+	/**
+	 * Adds a record for a book that is returned.
+	 * @param id ID of the book
+	 * @return The position to pass to commit()
+	 * @throws UncheckedIOException if the log failed
+	 */
+	long logReturn(int id) {
+		return append(ByteBuffer.allocate(5).put(RETURN).putInt(id).array());
+	}
+
+	/**
+	 * Waits until every record up to the given position is on disk. If no
+	 * other thread is writing records, this thread writes every buffered
+	 * record, including those of other threads, and forces them to disk.
+	 * @param position A position returned when a record was added
+	 * @throws UncheckedIOException if the records can't be written, or
+	 * the log failed before they were
+	 */
+	void commit(long position) {
+		while (true) {
+			byte[] batch;
+			long batchEnd;
+			synchronized (this) {
+				while (durable < position && flushing) {
+					try {
+						wait();
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new UncheckedIOException(new IOException("Interrupted while committing", e));
+					}
+				}
+				if (durable >= position) {
+					return;
+				}
+				checkNotFailed();
+				flushing = true;
+				batch = pending.toByteArray();
+				batchEnd = appended;
+				pending.reset();
+			}
+
+			IOException error = null;
+			try {
+				ByteBuffer buffer = ByteBuffer.wrap(batch);
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				channel.force(false);
+			}
+			catch (IOException e) {
+				error = e;
+				throw new UncheckedIOException(e);
+			}
+			finally {
+				synchronized (this) {
+					if (error == null) {
+						durable = batchEnd;
+					}
+					else if (failure == null) {
+						failure = error;
+					}
+					flushing = false;
+					notifyAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes any buffered records and closes the log file.
+	 * @throws IOException if the records can't be written
+	 */
+	@Override
+	public void close() throws IOException {
+		long position;
+		synchronized (this) {
+			position = appended;
+		}
+		try {
+			commit(position);
+		}
+		catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Adds a record to the buffer, preceded by its length and checksum.
+	 * @param payload The contents of the record
+	 * @return The position after the record
+	 * @throws UncheckedIOException if the log failed
+	 */
+	private synchronized long append(byte[] payload) {
+		checkNotFailed();
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		pending.writeBytes(ByteBuffer.allocate(8).putInt(payload.length).putInt((int) crc.getValue()).array());
+		pending.writeBytes(payload);
+		appended += 8 + payload.length;
+		return appended;
+	}
+
+	/**
+	 * Throws if records couldn't be written earlier. The caller must hold
+	 * the monitor.
+	 * @throws UncheckedIOException if the log failed
+	 */
+	private void checkNotFailed() {
+		if (failure != null) {
+			throw new UncheckedIOException("The log failed to write records earlier", failure);
+		}
+	}
+
+	/**
+	 * Writes a string that may be null or of any length, as its length
+	 * in bytes, or -1 for null, followed by its bytes in UTF-8.
+	 * @param out Where to write the string
+	 * @param str The string
+	 * @throws IOException if it can't be written
+	 */
+	private static void writeString(DataOutputStream out, String str) throws IOException {
+		if (str == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Reads a string written by writeString().
+	 * @param in Where to read the string from
+	 * @return The string, may be null
+	 * @throws IOException if the string is malformed
+	 */
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length == -1) {
+			return null;
+		}
+		if (length < 0) {
+			throw new IOException("Malformed string in log record");
+		}
+		byte[] bytes = in.readNBytes(length);
+		if (bytes.length != length) {
+			throw new EOFException();
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Applies every complete record in the file.
+	 * @param channel The log file
+	 * @param replayer Applies the records
+	 * @return The position after the last complete record
+	 * @throws IOException if the file can't be read
+	 */
+	private static long replay(FileChannel channel, Replayer replayer) throws IOException {
+		var in = new DataInputStream(Channels.newInputStream(channel.position(0)));
+		long end = 0;
+		CRC32 crc = new CRC32();
+		while (true) {
+			byte[] payload;
+			try {
+				int length = in.readInt();
+				int checksum = in.readInt();
+				if (length <= 0 || length > channel.size() - end - 8) {
+					return end;
+				}
+				payload = in.readNBytes(length);
+				crc.reset();
+				crc.update(payload);
+				if (payload.length != length || (int) crc.getValue() != checksum) {
+					return end;
+				}
+			}
+			catch (EOFException e) {
+				return end;
+			}
+			apply(payload, replayer);
+			end += 8 + payload.length;
+		}
+	}
+
+	/**
+	 * Applies a single record.
+	 * @param payload The contents of the record
+	 * @param replayer Applies the record
+	 * @throws IOException if the record is malformed
+	 */
+	private static void apply(byte[] payload, Replayer replayer) throws IOException {
+		var in = new DataInputStream(new ByteArrayInputStream(payload));
+		byte type = in.readByte();
+		int id = in.readInt();
+		switch (type) {
+		case ADD_BOOK:
+			String title = readString(in);
+			String author = readString(in);
+			String genre = readString(in);
+			replayer.addBook(id, title, author, genre, in.readInt());
+			break;
+		case REMOVE_BOOK:
+			replayer.removeBook(id);
+			break;
+		case CHECK_OUT:
+			replayer.checkOutBook(id, in.readInt());
+			break;
+		case RETURN:
+			replayer.returnBook(id);
+			break;
+		default:
+			throw new IOException("Unknown record type " + type);
+		}
+	}
+}
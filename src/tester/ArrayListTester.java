@@ -0,0 +1,132 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.util.ConcurrentModificationException;
+import java.util.ListIterator;
+
+import org.junit.Test;
+
+import data_structures.ArrayList;
+import data_structures.SinglyLinkedList;
+import interfaces.List;
+
+/**
+ * Tests for the ArrayList operations that work on many elements at once,
+ * and for the capacity and growth factor the array is sized with.
+ * @author jorge
+ *
+ */
+public class ArrayListTester {
+
+	private static ArrayList<Integer> range(int from, int to) {
+		ArrayList<Integer> list = new ArrayList<Integer>();
+		for (int i = from; i < to; i++) {
+			list.add(i);
+		}
+		return list;
+	}
+
+	/**
+	 * Describes every element of a List, in order.
+	 */
+	private static String elements(List<Integer> list) {
+		StringBuilder str = new StringBuilder();
+		for (int i = 0; i < list.size(); i++) {
+			str.append(list.get(i)).append(' ');
+		}
+		return str.toString();
+	}
+
+	@Test
+	public void testRemoveIf() {
+		ArrayList<Integer> list = range(0, 100);
+		assertEquals(50, list.removeIf(e -> e % 2 == 0));
+		assertEquals(50, list.size());
+		for (int i = 0; i < list.size(); i++) {
+			assertEquals(2 * i + 1, (int) list.get(i));
+		}
+
+		//removing nothing is not a change, so a cursor can go on
+		ListIterator<Integer> it = list.listIterator();
+		it.next();
+		assertEquals(0, list.removeIf(e -> e > 1000));
+		assertEquals(3, (int) it.next());
+
+		assertEquals(50, list.removeIf(e -> true));
+		assertEquals(0, list.size());
+		assertThrows(ConcurrentModificationException.class, it::next);
+		list.add(7);
+		assertEquals("7 ", elements(list));
+	}
+
+	@Test
+	public void testAddAll() {
+		ArrayList<Integer> list = range(0, 3);
+		list.addAll(range(3, 20));
+		assertEquals(elements(range(0, 20)), elements(list));
+
+		List<Integer> linked = new SinglyLinkedList<Integer>();
+		for (int i = 20; i < 25; i++) {
+			linked.add(i);
+		}
+		list.addAll(linked);
+		assertEquals(elements(range(0, 25)), elements(list));
+
+		ArrayList<Integer> empty = new ArrayList<Integer>(0);
+		empty.addAll(list);
+		assertEquals(elements(list), elements(empty));
+	}
+
+	@Test
+	public void testAddAllOfNothing() {
+		ArrayList<Integer> list = range(0, 5);
+		ListIterator<Integer> it = list.listIterator();
+		it.next();
+		list.addAll(new ArrayList<Integer>(0));
+		list.addAll(new SinglyLinkedList<Integer>());
+		assertEquals(1, (int) it.next());
+
+		list.addAll(range(5, 6));
+		assertThrows(ConcurrentModificationException.class, it::next);
+		assertEquals(elements(range(0, 6)), elements(list));
+	}
+
+	@Test
+	public void testEnsureCapacity() {
+		ArrayList<Integer> list = range(0, 10);
+		ListIterator<Integer> it = list.listIterator();
+		it.next();
+		list.ensureCapacity(1000);
+		list.ensureCapacity(5);
+		//growing the array doesn't change the elements
+		assertEquals(1, (int) it.next());
+		assertEquals(elements(range(0, 10)), elements(list));
+		for (int i = 10; i < 1000; i++) {
+			list.add(i);
+		}
+		assertEquals(elements(range(0, 1000)), elements(list));
+	}
+
+	@Test
+	public void testGrowthFactor() {
+		assertThrows(IllegalArgumentException.class, () -> new ArrayList<Integer>(10, 1.0));
+		assertThrows(IllegalArgumentException.class, () -> new ArrayList<Integer>(10, 0.5));
+		assertThrows(IllegalArgumentException.class, () -> new ArrayList<Integer>(10, Double.NaN));
+		assertThrows(IllegalArgumentException.class, () -> new ArrayList<Integer>(-1, 2.0));
+
+		//a factor so small that the array grows by less than one element
+		ArrayList<Integer> slow = new ArrayList<Integer>(0, 1.01);
+		ArrayList<Integer> fast = new ArrayList<Integer>(1, 10);
+		for (int i = 0; i < 1000; i++) {
+			slow.add(0, i);
+			fast.add(i);
+		}
+		assertEquals(1000, slow.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(999 - i, (int) slow.get(i));
+		}
+		assertEquals(elements(range(0, 1000)), elements(fast));
+	}
+}
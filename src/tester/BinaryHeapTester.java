@@ -0,0 +1,106 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import data_structures.BinaryHeap;
+
+/**
+ * Tests that BinaryHeap hands out its elements smallest first, next to a
+ * java.util.PriorityQueue getting the same calls.
+ * @author jorge
+ *
+ */
+public class BinaryHeapTester {
+
+	@Test
+	public void testRemovesInOrder() {
+		Random random = new Random(7);
+		BinaryHeap<Integer> heap = new BinaryHeap<Integer>(0, Comparator.naturalOrder());
+		java.util.List<Integer> expected = new java.util.ArrayList<Integer>();
+		for (int i = 0; i < 1000; i++) {
+			//a small range, so many elements are equal
+			int value = random.nextInt(100);
+			heap.add(value);
+			expected.add(value);
+		}
+		expected.sort(null);
+		assertEquals(1000, heap.size());
+		for (int e : expected) {
+			assertEquals(e, (int) heap.min());
+			assertEquals(e, (int) heap.removeMin());
+		}
+		assertTrue(heap.isEmpty());
+		assertThrows(NoSuchElementException.class, heap::min);
+		assertThrows(NoSuchElementException.class, heap::removeMin);
+		assertThrows(NoSuchElementException.class, () -> heap.replaceMin(1));
+	}
+
+	@Test
+	public void testRandomCalls() {
+		Random random = new Random(11);
+		Comparator<Integer> order = Comparator.reverseOrder();
+		BinaryHeap<Integer> heap = new BinaryHeap<Integer>(order);
+		java.util.PriorityQueue<Integer> expected = new java.util.PriorityQueue<Integer>(order);
+		for (int call = 0; call < 10_000; call++) {
+			String step = "call " + call;
+			int value = random.nextInt(1000);
+			int choice = random.nextInt(3);
+			if (expected.isEmpty() || choice == 0) {
+				heap.add(value);
+				expected.add(value);
+			}
+			else if (choice == 1) {
+				assertEquals(step, expected.poll(), heap.removeMin());
+			}
+			else {
+				assertEquals(step, expected.poll(), heap.replaceMin(value));
+				expected.add(value);
+			}
+			assertEquals(step, expected.size(), heap.size());
+			if (!expected.isEmpty()) {
+				assertEquals(step, expected.peek(), heap.min());
+			}
+		}
+		heap.clear();
+		assertTrue(heap.isEmpty());
+		heap.add(3);
+		assertEquals(3, (int) heap.min());
+	}
+
+	@Test
+	public void testKeepsTheLargest() {
+		//the way the catalog finds its top k elements
+		int k = 10;
+		Random random = new Random(3);
+		BinaryHeap<Integer> heap = new BinaryHeap<Integer>(k, Comparator.naturalOrder());
+		java.util.List<Integer> all = new java.util.ArrayList<Integer>();
+		for (int i = 0; i < 500; i++) {
+			int value = random.nextInt(10_000);
+			all.add(value);
+			if (heap.size() < k) {
+				heap.add(value);
+			}
+			else if (value > heap.min()) {
+				heap.replaceMin(value);
+			}
+		}
+		all.sort(null);
+		for (int e : all.subList(all.size() - k, all.size())) {
+			assertEquals(e, (int) heap.removeMin());
+		}
+	}
+
+	@Test
+	public void testIllegalArguments() {
+		assertThrows(IllegalArgumentException.class, () -> new BinaryHeap<Integer>(-1, Comparator.naturalOrder()));
+		assertThrows(NullPointerException.class, () -> new BinaryHeap<Integer>(null));
+	}
+}
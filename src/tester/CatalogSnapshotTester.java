@@ -0,0 +1,156 @@
+package tester;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import interfaces.List;
+import main.Book;
+import main.LibraryCatalog;
+import main.User;
+
+/**
+ * Tests writing a catalog to a snapshot and reading it back.
+ * @author jorge
+ *
+ */
+public class CatalogSnapshotTester {
+
+	private Path dir;
+	private Path file;
+
+	@Before
+	public void setup() throws IOException {
+		dir = Files.createTempDirectory("snapshot");
+		file = dir.resolve("catalog.snapshot");
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		Path[] files;
+		try (Stream<Path> walk = Files.walk(dir)) {
+			files = walk.sorted(Comparator.reverseOrder()).toArray(Path[]::new);
+		}
+		//children sort after their parents, so they are deleted first
+		for (Path e : files) {
+			Files.delete(e);
+		}
+	}
+
+	private static String describe(Book b) {
+		return b.getId() + "|" + b.getTitle() + "|" + b.getAuthor() + "|" + b.getGenre() + "|"
+				+ b.getLastCheckOutDay() + "|" + b.isCheckedOut();
+	}
+
+	private static String describe(User u) {
+		StringBuilder str = new StringBuilder(u.getId() + "|" + u.getName());
+		List<Book> books = u.getCheckedOutList();
+		if (books == null) {
+			return str.append("|none").toString();
+		}
+		for (Book b : books) {
+			str.append('|').append(b.getId());
+		}
+		return str.toString();
+	}
+
+	private static void assertSameCatalog(LibraryCatalog expected, LibraryCatalog actual) {
+		assertEquals(expected.getBookCatalog().size(), actual.getBookCatalog().size());
+		for (int i = 0; i < expected.getBookCatalog().size(); i++) {
+			assertEquals(describe(expected.getBookCatalog().get(i)), describe(actual.getBookCatalog().get(i)));
+		}
+		assertEquals(expected.getUsers().size(), actual.getUsers().size());
+		for (int i = 0; i < expected.getUsers().size(); i++) {
+			assertEquals(describe(expected.getUsers().get(i)), describe(actual.getUsers().get(i)));
+		}
+	}
+
+	private String[] listDir() throws IOException {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.map(e -> e.getFileName().toString()).sorted().toArray(String[]::new);
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		LibraryCatalog catalog = new LibraryCatalog();
+		catalog.addBook("No Author", null, null);
+		catalog.removeBook(3);
+		catalog.returnBook(36);
+		catalog.writeSnapshot(file.toString());
+
+		LibraryCatalog read = LibraryCatalog.fromSnapshot(file.toString());
+		assertSameCatalog(catalog, read);
+		assertEquals(catalog.countCheckedOut(), read.countCheckedOut());
+		assertEquals(catalog.calculateOverdueFees(), read.calculateOverdueFees(), 0);
+		assertArrayEquals(new String[] {"catalog.snapshot"}, listDir());
+	}
+
+	@Test
+	public void testListsThatWereNeverBuilt() throws IOException {
+		LibraryCatalog built = new LibraryCatalog();
+		for (User e : built.getUsers()) {
+			e.getCheckedOutList();
+		}
+		built.removeBook(36);
+		built.writeSnapshot(file.toString());
+		LibraryCatalog fromBuilt = LibraryCatalog.fromSnapshot(file.toString());
+
+		//the IDs are written without building the lists, the removed book
+		//included, and reading them back must give the same lists
+		LibraryCatalog lazy = new LibraryCatalog();
+		lazy.removeBook(36);
+		lazy.writeSnapshot(file.toString());
+		LibraryCatalog fromLazy = LibraryCatalog.fromSnapshot(file.toString());
+
+		assertSameCatalog(fromBuilt, fromLazy);
+		for (int i = 0; i < fromBuilt.getUsers().size(); i++) {
+			assertEquals(fromBuilt.getUsers().get(i).calculateFees(), fromLazy.getUsers().get(i).calculateFees(), 0);
+		}
+	}
+
+	@Test
+	public void testReplacesOldSnapshot() throws IOException {
+		LibraryCatalog catalog = new LibraryCatalog();
+		catalog.writeSnapshot(file.toString());
+		catalog.addBook("Added Later", "A", "B");
+		catalog.writeSnapshot(file.toString());
+
+		assertSameCatalog(catalog, LibraryCatalog.fromSnapshot(file.toString()));
+		assertArrayEquals(new String[] {"catalog.snapshot"}, listDir());
+	}
+
+	@Test
+	public void testFailedWriteLeavesNothingBehind() throws IOException {
+		//a directory that is not empty can't be replaced by the snapshot
+		Files.createDirectory(file);
+		Files.createFile(file.resolve("keep"));
+		LibraryCatalog catalog = new LibraryCatalog();
+		assertThrows(IOException.class, () -> catalog.writeSnapshot(file.toString()));
+		assertArrayEquals(new String[] {"catalog.snapshot"}, listDir());
+		assertTrue(Files.exists(file.resolve("keep")));
+	}
+
+	@Test
+	public void testRejectsOtherFiles() throws IOException {
+		Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+		assertThrows(IOException.class, () -> LibraryCatalog.fromSnapshot(file.toString()));
+
+		new LibraryCatalog().writeSnapshot(file.toString());
+		byte[] bytes = Files.readAllBytes(file);
+		Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+		assertThrows(IOException.class, () -> LibraryCatalog.fromSnapshot(file.toString()));
+	}
+}
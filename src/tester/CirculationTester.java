@@ -0,0 +1,213 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import main.Book;
+import main.BookPredicate;
+import main.LibraryCatalog;
+
+/**
+ * Tests checking out and returning books from several threads at once,
+ * one at a time and in groups.
+ * @author jorge
+ *
+ */
+public class CirculationTester {
+
+	private LibraryCatalog catalog;
+
+	@Before
+	public void setup() throws IOException {
+		catalog = new LibraryCatalog();
+	}
+
+	private int[] allIds() {
+		int[] ids = new int[catalog.getBookCatalog().size()];
+		int i = 0;
+		for (Book b : catalog.getBookCatalog()) {
+			ids[i++] = b.getId();
+		}
+		return ids;
+	}
+
+	@Test
+	public void testLargeGroup() {
+		for (int i = 0; i < 10_000; i++) {
+			catalog.addBook("Title " + i, "Author " + (i % 100), "Genre " + (i % 7));
+		}
+		int[] ids = allIds();
+		int available = ids.length - catalog.countCheckedOut();
+		BitSet checkedOut = catalog.checkOutBooks(ids);
+		assertEquals(available, checkedOut.cardinality());
+		assertEquals(ids.length, catalog.countCheckedOut());
+		BitSet returned = catalog.returnBooks(ids);
+		assertEquals(ids.length, returned.cardinality());
+		assertEquals(0, catalog.countCheckedOut());
+	}
+
+	@Test
+	public void testRepeatedIdsInAGroup() {
+		catalog.returnBook(2);
+		BitSet checkedOut = catalog.checkOutBooks(new int[] {2, 2, 9999});
+		assertEquals(1, checkedOut.cardinality());
+		assertTrue(checkedOut.get(0));
+	}
+
+	@Test
+	public void testConcurrentCirculation() throws InterruptedException {
+		int[] ids = allIds();
+		int threads = 8;
+		int rounds = 2_000;
+		//net amount of check outs minus returns made for each book
+		AtomicIntegerArray net = new AtomicIntegerArray(ids.length);
+		boolean[] initial = new boolean[ids.length];
+		for (int i = 0; i < ids.length; i++) {
+			initial[i] = !catalog.getBookAvailability(ids[i]);
+		}
+		CountDownLatch start = new CountDownLatch(1);
+		Thread[] workers = new Thread[threads];
+		Throwable[] failure = new Throwable[1];
+		for (int t = 0; t < threads; t++) {
+			long seed = t;
+			workers[t] = new Thread(() -> {
+				Random random = new Random(seed);
+				try {
+					start.await();
+					for (int r = 0; r < rounds; r++) {
+						if (random.nextInt(10) == 0) {
+							//a group of a few books, in any order
+							int[] group = new int[1 + random.nextInt(5)];
+							int[] positions = new int[group.length];
+							for (int i = 0; i < group.length; i++) {
+								positions[i] = random.nextInt(ids.length);
+								group[i] = ids[positions[i]];
+							}
+							boolean checkOut = random.nextBoolean();
+							BitSet changed = checkOut ? catalog.checkOutBooks(group) : catalog.returnBooks(group);
+							for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+								net.addAndGet(positions[i], checkOut ? 1 : -1);
+							}
+						}
+						else {
+							int i = random.nextInt(ids.length);
+							if (random.nextBoolean()) {
+								if (catalog.checkOutBook(ids[i])) {
+									net.incrementAndGet(i);
+								}
+							}
+							else if (catalog.returnBook(ids[i])) {
+								net.decrementAndGet(i);
+							}
+						}
+					}
+				}
+				catch (Throwable e) {
+					synchronized (failure) {
+						failure[0] = e;
+					}
+				}
+			});
+			workers[t].start();
+		}
+		start.countDown();
+		for (Thread e : workers) {
+			e.join();
+		}
+		if (failure[0] != null) {
+			throw new AssertionError(failure[0]);
+		}
+
+		int checkedOut = 0;
+		for (int i = 0; i < ids.length; i++) {
+			boolean now = !catalog.getBookAvailability(ids[i]);
+			//every success flipped the book, so they must add up to its change
+			assertEquals("book " + ids[i], (now ? 1 : 0) - (initial[i] ? 1 : 0), net.get(i));
+			if (now) {
+				checkedOut++;
+			}
+		}
+		assertEquals(checkedOut, catalog.countCheckedOut());
+		assertEquals(checkedOut, catalog.countBooks(BookPredicate.checkedOut()));
+		assertEquals(checkedOut, catalog.searchForBook(Book::isCheckedOut).size());
+	}
+
+	@Test
+	public void testConcurrentFieldChanges() throws InterruptedException {
+		Book[] books = { catalog.firstBook(e -> e.getId() == 2), catalog.firstBook(e -> e.getId() == 36) };
+		int threads = 4;
+		int rounds = 2_000;
+		CountDownLatch start = new CountDownLatch(1);
+		Throwable[] failure = new Throwable[1];
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			Random random = new Random(t);
+			workers[t] = new Thread(() -> {
+				try {
+					start.await();
+					for (int r = 0; r < rounds; r++) {
+						Book book = books[random.nextInt(books.length)];
+						String value = "T" + random.nextInt(3);
+						switch (random.nextInt(3)) {
+						case 0:
+							book.setTitle(value);
+							break;
+						case 1:
+							book.setAuthor(value);
+							break;
+						default:
+							book.setGenre(value);
+							break;
+						}
+					}
+				}
+				catch (Throwable e) {
+					synchronized (failure) {
+						failure[0] = e;
+					}
+				}
+			});
+			workers[t].start();
+		}
+		start.countDown();
+		for (Thread e : workers) {
+			e.join();
+		}
+		if (failure[0] != null) {
+			throw new AssertionError(failure[0]);
+		}
+
+		for (int i = 0; i < 3; i++) {
+			String value = "T" + i;
+			//the indexes must hold each book once, under the value it ended with
+			assertEquals(value, catalog.countBooks(e -> value.equals(e.getTitle())), catalog.bookCount(value));
+			assertEquals(value, catalog.countBooks(e -> value.equals(e.getTitle())), catalog.searchByTitle(value).size());
+			assertEquals(value, catalog.countBooks(e -> value.equals(e.getAuthor())), catalog.searchByAuthor(value).size());
+			assertEquals(value, catalog.countBooks(e -> value.equals(e.getGenre())), catalog.searchByGenre(value).size());
+		}
+		for (Book b : books) {
+			assertEquals(1, count(catalog.searchByTitle(b.getTitle()), b));
+			assertEquals(1, count(catalog.searchByAuthor(b.getAuthor()), b));
+			assertEquals(1, count(catalog.searchByGenre(b.getGenre()), b));
+		}
+	}
+
+	private static int count(Iterable<Book> books, Book book) {
+		int count = 0;
+		for (Book e : books) {
+			if (e == book) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,173 @@
+package tester;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import main.CsvReader;
+
+/**
+ * Tests for CsvReader: quoting, line endings and records that cross the
+ * boundaries of the buffer the file is read into.
+ * @author jorge
+ *
+ */
+public class CsvReaderTester {
+
+	/**
+	 * A stream that hands out a single byte per read, so that every field,
+	 * quote and line break crosses a refill of the reader's buffer.
+	 */
+	private static class TrickleStream extends InputStream {
+		private final InputStream in;
+
+		TrickleStream(byte[] bytes) {
+			this.in = new ByteArrayInputStream(bytes);
+		}
+
+		@Override
+		public int read() throws IOException {
+			return in.read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			return in.read(b, off, Math.min(len, 1));
+		}
+	}
+
+	private static CsvReader reader(String text) {
+		return new CsvReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static CsvReader trickle(String text) {
+		return new CsvReader(new TrickleStream(text.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Reads every record as a line of its fields joined by '|'.
+	 */
+	private static String readAll(CsvReader reader, int fields) throws IOException {
+		StringBuilder str = new StringBuilder();
+		while (reader.nextRecord()) {
+			for (int i = 0; i < fields; i++) {
+				if (i > 0) {
+					str.append('|');
+				}
+				str.append(reader.nextString());
+			}
+			str.append('\n');
+		}
+		reader.close();
+		return str.toString();
+	}
+
+	@Test
+	public void testReadsTypedFields() throws IOException {
+		CsvReader reader = reader("7,-12,TRUE,false,{2 4 6},\n");
+		assertTrue(reader.nextRecord());
+		assertEquals(7, reader.nextInt());
+		assertEquals(-12, reader.nextInt());
+		assertTrue(reader.nextBoolean());
+		assertFalse(reader.nextBoolean());
+		assertArrayEquals(new int[] {2, 4, 6}, reader.nextIntList());
+		assertArrayEquals(new int[0], reader.nextIntList());
+		assertFalse(reader.nextRecord());
+	}
+
+	@Test
+	public void testQuotedFields() throws IOException {
+		String text = "1,\"Smith, John\",\"He said \"\"hi\"\"\"\n"
+				+ "2,\"two\nlines\",\"\"\n";
+		assertEquals("1|Smith, John|He said \"hi\"\n2|two\nlines|\n", readAll(reader(text), 3));
+	}
+
+	@Test
+	public void testLineEndings() throws IOException {
+		String text = "a,b\r\nc,d\r\n\r\n\ne,f\rg,h";
+		assertEquals("a|b\nc|d\ne|f\ng|h\n", readAll(reader(text), 2));
+	}
+
+	@Test
+	public void testSkipsUnreadFields() throws IOException {
+		CsvReader reader = reader("1,x,y,z\n2,x,y,z\n");
+		assertTrue(reader.nextRecord());
+		assertEquals(1, reader.nextInt());
+		assertTrue(reader.nextRecord());
+		assertEquals(2, reader.nextInt());
+		assertFalse(reader.nextRecord());
+	}
+
+	@Test
+	public void testBufferBoundaries() throws IOException {
+		String text = "1,\"a, \"\"quoted\"\"\r\nfield\",x\r\n2,plain,\"\"\"\"\r\n\r\n3,\"\",last";
+		String expected = readAll(reader(text), 3);
+		assertEquals("1|a, \"quoted\"\r\nfield|x\n2|plain|\"\n3||last\n", expected);
+		assertEquals(expected, readAll(trickle(text), 3));
+	}
+
+	@Test
+	public void testFieldLargerThanBuffer() throws IOException {
+		String big = "x".repeat(200_000);
+		String text = "1,\"" + big + "\"\n2," + big + "\n";
+		assertEquals("1|" + big + "\n2|" + big + "\n", readAll(reader(text), 2));
+	}
+
+	@Test
+	public void testMappedFile() throws IOException {
+		Path file = Files.createTempFile("csv", ".csv");
+		try {
+			String text = "1,\"Smith, John\",{3}\r\n2,Jane,\n";
+			Files.writeString(file, text);
+			try (FileChannel channel = FileChannel.open(file)) {
+				CsvReader reader = new CsvReader(channel);
+				assertTrue(reader.nextRecord());
+				assertEquals(1, reader.nextInt());
+				assertEquals("Smith, John", reader.nextString());
+				assertArrayEquals(new int[] {3}, reader.nextIntList());
+				assertTrue(reader.nextRecord());
+				assertEquals(2, reader.nextInt());
+				assertEquals("Jane", reader.nextString());
+				assertArrayEquals(new int[0], reader.nextIntList());
+				assertFalse(reader.nextRecord());
+			}
+		}
+		finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testMalformedInput() throws IOException {
+		CsvReader unterminated = reader("1,\"never closed\n");
+		assertTrue(unterminated.nextRecord());
+		unterminated.nextInt();
+		assertThrows(IOException.class, unterminated::nextString);
+
+		CsvReader afterQuote = reader("\"a\"b,c\n");
+		assertTrue(afterQuote.nextRecord());
+		assertThrows(IOException.class, afterQuote::nextString);
+
+		CsvReader short1 = reader("1\n");
+		assertTrue(short1.nextRecord());
+		short1.nextInt();
+		assertThrows(IOException.class, short1::nextString);
+
+		CsvReader notNumber = reader("12a,2147483648\n");
+		assertTrue(notNumber.nextRecord());
+		assertThrows(NumberFormatException.class, notNumber::nextInt);
+		assertThrows(NumberFormatException.class, notNumber::nextInt);
+	}
+}
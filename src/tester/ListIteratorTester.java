@@ -0,0 +1,198 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.util.ConcurrentModificationException;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import data_structures.ArrayList;
+import data_structures.DoublyLinkedList;
+import data_structures.SinglyLinkedList;
+import interfaces.List;
+
+/**
+ * Tests the ListIterator of every List implementation by moving it and
+ * changing the List through it at random, next to a java.util.ArrayList
+ * that gets the same calls.
+ * @author jorge
+ *
+ */
+@RunWith(Parameterized.class)
+public class ListIteratorTester {
+
+	@Parameters(name = "{0}")
+	public static Object[][] lists() {
+		return new Object[][] {
+			{"ArrayList", (Supplier<List<Integer>>) ArrayList::new},
+			{"SinglyLinkedList", (Supplier<List<Integer>>) SinglyLinkedList::new},
+			{"DoublyLinkedList", (Supplier<List<Integer>>) DoublyLinkedList::new},
+		};
+	}
+
+	@Parameter(0)
+	public String name;
+
+	@Parameter(1)
+	public Supplier<List<Integer>> factory;
+
+	private List<Integer> list(int size) {
+		List<Integer> list = factory.get();
+		for (int i = 0; i < size; i++) {
+			list.add(i);
+		}
+		return list;
+	}
+
+	/**
+	 * Describes every element of a List, in order.
+	 */
+	private static String elements(Iterable<Integer> list) {
+		StringBuilder str = new StringBuilder();
+		for (Integer e : list) {
+			str.append(e).append(' ');
+		}
+		return str.toString();
+	}
+
+	/**
+	 * Runs a call on both cursors, and checks that both give back the same
+	 * value or fail with the same exception.
+	 */
+	private static void assertSameCall(String step, Supplier<Object> expected, Supplier<Object> actual) {
+		Object expectedResult;
+		try {
+			expectedResult = expected.get();
+		}
+		catch (RuntimeException e) {
+			assertThrows(step, e.getClass(), actual::get);
+			return;
+		}
+		assertEquals(step, expectedResult, actual.get());
+	}
+
+	@Test
+	public void testRandomCalls() {
+		Random random = new Random(42);
+		for (int round = 0; round < 50; round++) {
+			int size = random.nextInt(10);
+			java.util.List<Integer> expected = new java.util.ArrayList<Integer>();
+			for (int i = 0; i < size; i++) {
+				expected.add(i);
+			}
+			List<Integer> actual = list(size);
+			int start = random.nextInt(size + 1);
+			ListIterator<Integer> expectedIt = expected.listIterator(start);
+			ListIterator<Integer> actualIt = actual.listIterator(start);
+
+			for (int call = 0; call < 200; call++) {
+				String step = "round " + round + ", call " + call;
+				int value = 100 + call;
+				switch (random.nextInt(7)) {
+				case 0:
+				case 1:
+					assertSameCall(step, expectedIt::next, actualIt::next);
+					break;
+				case 2:
+				case 3:
+					assertSameCall(step, expectedIt::previous, actualIt::previous);
+					break;
+				case 4:
+					expectedIt.add(value);
+					actualIt.add(value);
+					break;
+				case 5:
+					assertSameCall(step, () -> {
+						expectedIt.set(value);
+						return null;
+					}, () -> {
+						actualIt.set(value);
+						return null;
+					});
+					break;
+				default:
+					assertSameCall(step, () -> {
+						expectedIt.remove();
+						return null;
+					}, () -> {
+						actualIt.remove();
+						return null;
+					});
+					break;
+				}
+				assertEquals(step, expectedIt.hasNext(), actualIt.hasNext());
+				assertEquals(step, expectedIt.hasPrevious(), actualIt.hasPrevious());
+				assertEquals(step, expectedIt.nextIndex(), actualIt.nextIndex());
+				assertEquals(step, expectedIt.previousIndex(), actualIt.previousIndex());
+				assertEquals(step, expected.size(), actual.size());
+			}
+			assertEquals(elements(expected), elements(actual));
+		}
+	}
+
+	@Test
+	public void testEnds() {
+		ListIterator<Integer> it = list(2).listIterator(2);
+		assertThrows(NoSuchElementException.class, it::next);
+		assertEquals(1, (int) it.previous());
+		assertEquals(0, (int) it.previous());
+		assertThrows(NoSuchElementException.class, it::previous);
+		assertThrows(IndexOutOfBoundsException.class, () -> list(2).listIterator(3));
+		assertThrows(IndexOutOfBoundsException.class, () -> list(2).listIterator(-1));
+	}
+
+	@Test
+	public void testNoElementToChange() {
+		List<Integer> list = list(3);
+		ListIterator<Integer> it = list.listIterator();
+		//nothing returned yet
+		assertThrows(IllegalStateException.class, () -> it.set(7));
+		assertThrows(IllegalStateException.class, it::remove);
+
+		it.next();
+		it.remove();
+		//the element returned is gone
+		assertThrows(IllegalStateException.class, () -> it.set(7));
+		assertThrows(IllegalStateException.class, it::remove);
+
+		it.next();
+		it.add(9);
+		//an element was added after the one returned
+		assertThrows(IllegalStateException.class, () -> it.set(7));
+		assertThrows(IllegalStateException.class, it::remove);
+		assertEquals("1 9 2 ", elements(list));
+	}
+
+	@Test
+	public void testChangesBehindTheCursor() {
+		List<Integer> list = list(5);
+		ListIterator<Integer> it = list.listIterator();
+		it.next();
+		list.add(5);
+		assertThrows(ConcurrentModificationException.class, it::next);
+		assertThrows(ConcurrentModificationException.class, it::previous);
+		assertThrows(ConcurrentModificationException.class, it::remove);
+		assertThrows(ConcurrentModificationException.class, () -> it.add(7));
+
+		ListIterator<Integer> removed = list.listIterator(3);
+		list.remove(0);
+		assertThrows(ConcurrentModificationException.class, removed::previous);
+
+		//changes made through another cursor count too
+		ListIterator<Integer> first = list.listIterator();
+		ListIterator<Integer> second = list.listIterator();
+		first.next();
+		first.remove();
+		assertThrows(ConcurrentModificationException.class, second::next);
+		assertEquals("2 3 4 5 ", elements(list));
+	}
+}
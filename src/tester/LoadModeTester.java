@@ -0,0 +1,71 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import interfaces.List;
+import main.Book;
+import main.LibraryCatalog;
+import main.LoadMode;
+import main.User;
+
+/**
+ * Tests that every LoadMode reads the data files into the same catalog
+ * as reading them as streams.
+ * @author jorge
+ *
+ */
+@RunWith(Parameterized.class)
+public class LoadModeTester {
+
+	@Parameters(name = "{0}")
+	public static LoadMode[] modes() {
+		return LoadMode.values();
+	}
+
+	@Parameter
+	public LoadMode mode;
+
+	private static String describe(Book b) {
+		return b.getId() + "|" + b.getTitle() + "|" + b.getAuthor() + "|" + b.getGenre() + "|"
+				+ b.getLastCheckOutDay() + "|" + b.isCheckedOut();
+	}
+
+	private static String describe(User u) {
+		StringBuilder str = new StringBuilder(u.getId() + "|" + u.getName());
+		List<Book> books = u.getCheckedOutList();
+		if (books == null) {
+			return str.append("|none").toString();
+		}
+		for (Book b : books) {
+			str.append('|').append(b.getId());
+		}
+		return str.toString();
+	}
+
+	@Test
+	public void testSameCatalogAsStream() throws IOException {
+		LibraryCatalog expected = new LibraryCatalog(LoadMode.STREAM);
+		LibraryCatalog actual = new LibraryCatalog(mode);
+		assertEquals(expected.getBookCatalog().size(), actual.getBookCatalog().size());
+		for (int i = 0; i < expected.getBookCatalog().size(); i++) {
+			assertEquals(describe(expected.getBookCatalog().get(i)), describe(actual.getBookCatalog().get(i)));
+		}
+		assertEquals(expected.getUsers().size(), actual.getUsers().size());
+		for (int i = 0; i < expected.getUsers().size(); i++) {
+			User e = expected.getUsers().get(i);
+			User a = actual.getUsers().get(i);
+			assertEquals(describe(e), describe(a));
+			assertEquals(e.calculateFees(), a.calculateFees(), 0);
+		}
+		assertEquals(expected.countCheckedOut(), actual.countCheckedOut());
+		assertEquals(expected.countBooksByGenre().size(), actual.countBooksByGenre().size());
+	}
+}
@@ -0,0 +1,239 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Comparator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import interfaces.FilterFunction;
+import main.Book;
+import main.BookPredicate;
+import main.LibraryCatalog;
+import main.User;
+
+/**
+ * Tests that the searches and scans the catalog answers from its indexes
+ * and columns give the same books, in the same order, as testing every
+ * book of the catalog.
+ * @author jorge
+ *
+ */
+public class QueryTester {
+
+	private LibraryCatalog catalog;
+
+	@Before
+	public void setup() throws IOException {
+		catalog = new LibraryCatalog();
+	}
+
+	/**
+	 * Describes every book of a search, in order.
+	 */
+	private static String ids(Iterable<Book> books) {
+		StringBuilder str = new StringBuilder();
+		for (Book e : books) {
+			str.append(e.getId()).append(' ');
+		}
+		return str.toString();
+	}
+
+	/**
+	 * Describes every user of a search, in order.
+	 */
+	private static String userIds(Iterable<User> users) {
+		StringBuilder str = new StringBuilder();
+		for (User e : users) {
+			str.append(e.getId()).append(' ');
+		}
+		return str.toString();
+	}
+
+	@Test
+	public void testScansAfterManyRemovals() {
+		for (int i = 0; i < 200; i++) {
+			catalog.addBook("Title " + i, "Author " + (i % 10), "Genre " + (i % 3));
+			if (i % 3 == 0) {
+				catalog.checkOutBook(catalog.getBookCatalog().last().getId());
+			}
+		}
+		//empty most of the slots, then add enough books to reuse them
+		for (int id = 1; id < 250; id++) {
+			if (id % 10 != 0) {
+				catalog.removeBook(id);
+			}
+		}
+		for (int i = 0; i < 300; i++) {
+			catalog.addBook("More " + i, "Author " + (i % 10), "Genre " + (i % 3));
+			if (i % 4 == 0) {
+				catalog.checkOutBook(catalog.getBookCatalog().last().getId());
+			}
+		}
+
+		int checkedOut = 0;
+		float fees = 0;
+		for (Book e : catalog.getBookCatalog()) {
+			if (e.isCheckedOut()) {
+				checkedOut++;
+				fees += e.calculateFees();
+			}
+		}
+		assertEquals(checkedOut, catalog.countCheckedOut());
+		assertEquals(fees, catalog.calculateOverdueFees(), 0.01f);
+		assertEquals(ids(catalog.searchForBook(Book::isCheckedOut)),
+				ids(catalog.searchForBook(BookPredicate.checkedOut())));
+	}
+
+	/**
+	 * Checks that a predicate finds the same books, in the same order, as
+	 * testing every book of the catalog with it.
+	 */
+	private void assertSameSearch(BookPredicate predicate) {
+		assertEquals(ids(catalog.searchForBook(e -> predicate.filter(e))), ids(catalog.searchForBook(predicate)));
+	}
+
+	@Test
+	public void testCatalogOrderAfterRemoval() {
+		catalog.removeBook(2);
+		assertSameSearch(BookPredicate.checkedOut());
+		assertSameSearch(BookPredicate.or(BookPredicate.genreEquals("Fiction"), BookPredicate.genreEquals("Mystery")));
+		assertSameSearch(BookPredicate.and(BookPredicate.checkedOut(), BookPredicate.not(BookPredicate.genreEquals("Fiction"))));
+	}
+
+	@Test
+	public void testCatalogOrderAfterFieldChanges() {
+		Book first = catalog.getBookCatalog().get(0);
+		Book last = catalog.getBookCatalog().last();
+		first.setGenre("Fiction");
+		first.setGenre("Mystery");
+		last.setGenre("Mystery");
+		first.setAuthor(last.getAuthor());
+		assertSameSearch(BookPredicate.genreEquals("Mystery"));
+		assertSameSearch(BookPredicate.authorEquals(last.getAuthor()));
+		assertSameSearch(BookPredicate.or(BookPredicate.genreEquals("Mystery"), BookPredicate.checkedOut()));
+		assertEquals(first, catalog.searchByGenre("Mystery").first());
+	}
+
+	@Test
+	public void testChangedFieldsShareStrings() {
+		Book first = catalog.getBookCatalog().get(0);
+		Book last = catalog.getBookCatalog().last();
+		first.setGenre(new String(last.getGenre()));
+		first.setAuthor(new String(last.getAuthor()));
+		assertSame(last.getGenre(), first.getGenre());
+		assertSame(last.getAuthor(), first.getAuthor());
+	}
+
+	@Test
+	public void testShortCircuitingQueriesAfterRemoval() {
+		catalog.removeBook(2);
+		BookPredicate checkedOut = BookPredicate.checkedOut();
+		assertEquals(catalog.firstBook(Book::isCheckedOut), catalog.firstBook(checkedOut));
+		assertEquals(ids(catalog.searchForBook(Book::isCheckedOut, 3)), ids(catalog.searchForBook(checkedOut, 3)));
+		assertEquals(catalog.countBooks(Book::isCheckedOut), catalog.countBooks(checkedOut));
+
+		BookPredicate none = BookPredicate.and(checkedOut, BookPredicate.titleEquals("No Such Title"));
+		assertNull(catalog.firstBook(none));
+		assertFalse(catalog.anyBook(none));
+		assertTrue(catalog.anyBook(BookPredicate.or(checkedOut, none)));
+	}
+
+	@Test
+	public void testParallelSearches() {
+		//enough books for the search to be split into many chunks
+		for (int i = 0; i < 10_000; i++) {
+			catalog.addBook("Title " + i, "Author " + (i % 10), "Genre " + (i % 3));
+		}
+		for (int id = 1; id < 10_000; id += 7) {
+			catalog.removeBook(id);
+		}
+		FilterFunction<Book> some = e -> e.getId() % 3 == 0 || e.isCheckedOut();
+		assertEquals(ids(catalog.searchForBook(some)), ids(catalog.parallelSearchForBook(some)));
+		assertEquals(ids(catalog.searchForBook(e -> true)), ids(catalog.parallelSearchForBook(e -> true)));
+		assertEquals(0, catalog.parallelSearchForBook(e -> false).size());
+
+		FilterFunction<User> owing = e -> e.calculateFees() > 0;
+		assertEquals(userIds(catalog.searchForUsers(owing)), userIds(catalog.parallelSearchForUsers(owing)));
+	}
+
+	/**
+	 * Sorts the elements of a search by the given order, largest first.
+	 * The sort is stable, so equal elements keep their order.
+	 */
+	private static <T> java.util.List<T> sorted(Iterable<T> elements, Comparator<? super T> order) {
+		java.util.List<T> list = new java.util.ArrayList<T>();
+		for (T e : elements) {
+			list.add(e);
+		}
+		list.sort(order.reversed());
+		return list;
+	}
+
+	@Test
+	public void testTopOfNothing() {
+		assertEquals(0, catalog.topBooks(0, Comparator.comparing(Book::getId)).size());
+		assertEquals(0, catalog.topUsers(0, Comparator.comparing(User::getId)).size());
+		assertEquals(0, catalog.mostOverdueBooks(0).size());
+		assertEquals(0, catalog.usersOwingMost(0).size());
+		assertThrows(IllegalArgumentException.class, () -> catalog.topBooks(-1, Comparator.comparing(Book::getId)));
+		assertThrows(IllegalArgumentException.class, () -> catalog.usersOwingMost(-1));
+	}
+
+	@Test
+	public void testTopOfMoreThanThereAre() {
+		int books = catalog.getBookCatalog().size();
+		int users = catalog.getUsers().size();
+		Comparator<Book> byId = Comparator.comparing(Book::getId);
+		assertEquals(ids(sorted(catalog.getBookCatalog(), byId)), ids(catalog.topBooks(books + 5, byId)));
+		Comparator<User> byName = Comparator.comparing(User::getName);
+		assertEquals(userIds(sorted(catalog.getUsers(), byName)), userIds(catalog.topUsers(users + 5, byName)));
+	}
+
+	@Test
+	public void testTiesInCatalogOrder() {
+		Comparator<Book> none = (a, b) -> 0;
+		assertEquals(ids(sorted(catalog.getBookCatalog(), none).subList(0, 5)), ids(catalog.topBooks(5, none)));
+		Comparator<Book> byGenre = Comparator.comparing(Book::getGenre);
+		int books = catalog.getBookCatalog().size();
+		for (int k : new int[] {1, 4, books}) {
+			assertEquals(ids(sorted(catalog.getBookCatalog(), byGenre).subList(0, k)), ids(catalog.topBooks(k, byGenre)));
+		}
+		Comparator<User> users = (a, b) -> 0;
+		assertEquals(userIds(sorted(catalog.getUsers(), users).subList(0, 3)), userIds(catalog.topUsers(3, users)));
+	}
+
+	@Test
+	public void testMostOverdue() {
+		Comparator<Book> byFees = Comparator.comparingDouble(Book::calculateFees);
+		java.util.List<Book> overdue = sorted(catalog.searchForBook(e -> e.isCheckedOut() && e.calculateFees() > 0), byFees);
+		assertTrue(overdue.size() > 3);
+		for (int k : new int[] {1, 3, overdue.size(), overdue.size() + 5}) {
+			assertEquals(ids(overdue.subList(0, Math.min(k, overdue.size()))), ids(catalog.mostOverdueBooks(k)));
+		}
+
+		Comparator<User> byUserFees = Comparator.comparingDouble(User::calculateFees);
+		java.util.List<User> owing = sorted(catalog.searchForUsers(e -> e.calculateFees() > 0), byUserFees);
+		assertEquals(userIds(owing), userIds(catalog.usersOwingMost(owing.size() + 5)));
+		assertEquals(userIds(owing.subList(0, 2)), userIds(catalog.usersOwingMost(2)));
+	}
+
+	@Test
+	public void testNullFields() {
+		catalog.addBook(null, null, null);
+		catalog.addBook(null, "Someone", "Fiction");
+		assertEquals(2, catalog.bookCount(null));
+		assertEquals(ids(catalog.searchForBook(BookPredicate.titleEquals(null))), ids(catalog.searchByTitle(null)));
+		assertEquals(ids(catalog.searchForBook(BookPredicate.authorEquals(null))), ids(catalog.searchByAuthor(null)));
+		assertEquals(ids(catalog.searchForBook(BookPredicate.genreEquals(null))), ids(catalog.searchByGenre(null)));
+		assertEquals(2, catalog.searchByTitle(null).size());
+		assertEquals(1, catalog.searchByAuthor(null).size());
+	}
+}
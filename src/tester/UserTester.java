@@ -0,0 +1,120 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import data_structures.SinglyLinkedList;
+import interfaces.List;
+import main.Book;
+import main.LibraryCatalog;
+import main.User;
+
+/**
+ * Tests that the fees a user owes follow every change made to their list
+ * of checked out books.
+ * @author jorge
+ *
+ */
+public class UserTester {
+
+	private LibraryCatalog catalog;
+	private User jane;
+	private Book book36;
+
+	@Before
+	public void setup() throws IOException {
+		catalog = new LibraryCatalog();
+		jane = catalog.getUsers().get(1);
+		book36 = catalog.firstBook(e -> e.getId() == 36);
+	}
+
+	@Test
+	public void testChangesThroughTheList() {
+		assertEquals(0.0f, jane.calculateFees(), 0);
+		jane.getCheckedOutList().add(book36);
+		assertEquals(389.5f, jane.calculateFees(), 0);
+		jane.getCheckedOutList().remove(book36);
+		assertEquals(0.0f, jane.calculateFees(), 0);
+	}
+
+	@Test
+	public void testChangesThroughTheIterator() {
+		jane.getCheckedOutList().listIterator().add(book36);
+		assertEquals(389.5f, jane.calculateFees(), 0);
+		var it = jane.getCheckedOutList().iterator();
+		while (it.hasNext()) {
+			if (it.next() == book36) {
+				it.remove();
+			}
+		}
+		assertEquals(0.0f, jane.calculateFees(), 0);
+	}
+
+	@Test
+	public void testBooksAddedInPlaceAreFollowed() {
+		jane.getCheckedOutList().add(book36);
+		assertEquals(389.5f, jane.calculateFees(), 0);
+		catalog.returnBook(36);
+		assertEquals(0.0f, jane.calculateFees(), 0);
+	}
+
+	@Test
+	public void testReplacedList() {
+		List<Book> books = new SinglyLinkedList<Book>();
+		books.add(book36);
+		jane.setCheckedOutList(books);
+		assertEquals(389.5f, jane.calculateFees(), 0);
+		catalog.returnBook(36);
+		assertEquals(0.0f, jane.calculateFees(), 0);
+	}
+
+	@Test
+	public void testFeesWithoutTheList() throws IOException {
+		LibraryCatalog built = new LibraryCatalog();
+		for (int i = 0; i < catalog.getUsers().size(); i++) {
+			User lazy = catalog.getUsers().get(i);
+			User e = built.getUsers().get(i);
+			e.getCheckedOutList();
+			assertEquals(e.getName(), e.calculateFees(), lazy.calculateFees(), 0);
+		}
+	}
+
+	@Test
+	public void testCachedFeesFollowReturns() throws IOException {
+		//find a book of the user in another catalog, so this one never
+		//builds the user's list
+		User other = new LibraryCatalog().usersOwingMost(1).get(0);
+		Book first = other.getCheckedOutList().first();
+		User owing = catalog.usersOwingMost(1).get(0);
+		float fees = owing.calculateFees();
+		assertEquals(other.calculateFees(), fees, 0);
+		catalog.returnBook(first.getId());
+		assertEquals(fees - first.calculateFees(), owing.calculateFees(), 0.01f);
+	}
+
+	@Test
+	public void testClockChangesFees() {
+		User owing = catalog.usersOwingMost(1).get(0);
+		float fees = owing.calculateFees();
+		assertEquals(389.5f, book36.calculateFees(), 0);
+
+		LocalDate later = LibraryCatalog.DEFAULT_BUSINESS_DATE.plusDays(30);
+		catalog.setClock(Clock.fixed(later.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC));
+		assertEquals(later, catalog.getBusinessDate());
+		assertEquals(389.5f + 30 * 1.5f, book36.calculateFees(), 0);
+		assertTrue(owing.calculateFees() > fees);
+
+		catalog.setClock(Clock.fixed(LibraryCatalog.DEFAULT_BUSINESS_DATE.atStartOfDay(ZoneOffset.UTC).toInstant(),
+				ZoneOffset.UTC));
+		assertEquals(389.5f, book36.calculateFees(), 0);
+		assertEquals(fees, owing.calculateFees(), 0);
+	}
+}
@@ -0,0 +1,166 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import main.Book;
+import main.LibraryCatalog;
+
+/**
+ * Tests that the changes written to the log are replayed by a new
+ * catalog, and that damaged logs and failed writes are dealt with.
+ * @author jorge
+ *
+ */
+public class WriteAheadLogTester {
+
+	private Path file;
+
+	@Before
+	public void setup() throws IOException {
+		file = Files.createTempFile("catalog", ".log");
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	/**
+	 * Creates a catalog from the data files and replays the log into it.
+	 */
+	private LibraryCatalog reopen() throws IOException {
+		LibraryCatalog catalog = new LibraryCatalog();
+		catalog.openLog(file.toString());
+		catalog.closeLog();
+		return catalog;
+	}
+
+	private static Book findByTitle(LibraryCatalog catalog, String title) {
+		return catalog.firstBook(e -> title.equals(e.getTitle()));
+	}
+
+	/**
+	 * Writes a few changes to the log.
+	 */
+	private void writeChanges() throws IOException {
+		LibraryCatalog catalog = new LibraryCatalog();
+		catalog.openLog(file.toString());
+		catalog.addBook("Logged", "Some Author", "Fiction");
+		catalog.removeBook(3);
+		assertTrue(catalog.returnBook(36));
+		assertTrue(catalog.checkOutBook(1) || catalog.returnBook(1));
+		catalog.closeLog();
+	}
+
+	@Test
+	public void testReplay() throws IOException {
+		LibraryCatalog before = new LibraryCatalog();
+		boolean book1 = before.getBookAvailability(1);
+		writeChanges();
+
+		LibraryCatalog catalog = reopen();
+		assertEquals(50, catalog.getBookCatalog().size());
+		Book logged = findByTitle(catalog, "Logged");
+		assertEquals("Some Author", logged.getAuthor());
+		assertEquals("Fiction", logged.getGenre());
+		assertNull(catalog.firstBook(e -> e.getId() == 3));
+		assertTrue(catalog.getBookAvailability(36));
+		assertEquals(!book1, catalog.getBookAvailability(1));
+	}
+
+	@Test
+	public void testTornTailIsDropped() throws IOException {
+		writeChanges();
+		long size = Files.size(file);
+		//a record header that promises more bytes than were written
+		Files.write(file, ByteBuffer.allocate(11).putInt(100).putInt(0).put(new byte[] {1, 2, 3}).array(),
+				StandardOpenOption.APPEND);
+
+		LibraryCatalog catalog = reopen();
+		assertEquals(size, Files.size(file));
+		assertTrue(catalog.getBookAvailability(36));
+		assertTrue(findByTitle(catalog, "Logged") != null);
+	}
+
+	@Test
+	public void testBadChecksumIsDropped() throws IOException {
+		LibraryCatalog catalog = new LibraryCatalog();
+		catalog.openLog(file.toString());
+		catalog.addBook("Logged", "Some Author", "Fiction");
+		catalog.closeLog();
+		long size = Files.size(file);
+		catalog.openLog(file.toString());
+		assertTrue(catalog.returnBook(36));
+		catalog.closeLog();
+
+		//damage the id of the return, the last record of the log
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] {0x7f}), channel.size() - 1);
+		}
+
+		catalog = reopen();
+		assertEquals(size, Files.size(file));
+		assertTrue(findByTitle(catalog, "Logged") != null);
+		assertFalse(catalog.getBookAvailability(36));
+	}
+
+	@Test
+	public void testUnusualStrings() throws IOException {
+		String longTitle = "\u00e9\u4e66".repeat(40_000);
+		LibraryCatalog catalog = new LibraryCatalog();
+		catalog.openLog(file.toString());
+		catalog.addBook("No Author", null, null);
+		catalog.addBook(longTitle, "A", "B");
+		catalog.closeLog();
+
+		catalog = reopen();
+		Book noAuthor = findByTitle(catalog, "No Author");
+		assertNull(noAuthor.getAuthor());
+		assertNull(noAuthor.getGenre());
+		assertEquals("A", findByTitle(catalog, longTitle).getAuthor());
+	}
+
+	@Test
+	public void testFailedLog() throws IOException {
+		//writes to /dev/full always fail with "No space left on device"
+		Path full = Path.of("/dev/full");
+		Assume.assumeTrue(Files.isWritable(full));
+		LibraryCatalog catalog = new LibraryCatalog();
+		catalog.openLog(full.toString());
+
+		//the change is made and logged, but it can't be made durable
+		assertThrows(UncheckedIOException.class, () -> catalog.addBook("Lost", "A", "B"));
+		assertEquals(51, catalog.getBookCatalog().size());
+
+		//once the log failed, changes are refused before they are made
+		boolean available = catalog.getBookAvailability(36);
+		assertThrows(UncheckedIOException.class, () -> catalog.addBook("Refused", "A", "B"));
+		assertThrows(UncheckedIOException.class, () -> catalog.removeBook(1));
+		assertThrows(UncheckedIOException.class, () -> catalog.returnBook(36));
+		int free = catalog.firstBook(e -> !e.isCheckedOut()).getId();
+		assertThrows(UncheckedIOException.class, () -> catalog.checkOutBooks(new int[] {free}));
+		assertEquals(51, catalog.getBookCatalog().size());
+		assertNull(findByTitle(catalog, "Refused"));
+		assertTrue(catalog.firstBook(e -> e.getId() == 1) != null);
+		assertEquals(available, catalog.getBookAvailability(36));
+		assertTrue(catalog.getBookAvailability(free));
+		assertThrows(IOException.class, catalog::closeLog);
+	}
+}